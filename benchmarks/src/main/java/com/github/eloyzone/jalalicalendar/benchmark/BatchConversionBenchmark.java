@@ -0,0 +1,114 @@
+package com.github.eloyzone.jalalicalendar.benchmark;
+
+import com.github.eloyzone.jalalicalendar.DateConverter;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bulk conversion of a column of dates with converting the same dates one by one through
+ * {@link DateConverter#gregorianToJalali(int, int, int)}.
+ * <p>
+ * Results are reported per column, each column has {@code size} dates that are either sorted or shuffled.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchConversionBenchmark
+{
+    @Param({"100000"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean sorted;
+
+    private long[] epochDays;
+    private int[] years;
+    private int[] months;
+    private int[] days;
+    private int[] packedDates;
+    private long[] epochDaysOut;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(1397);
+        long firstEpochDay = LocalDate.of(1970, 1, 1).toEpochDay();
+        long lastEpochDay = LocalDate.of(2050, 1, 1).toEpochDay();
+
+        epochDays = new long[size];
+        years = new int[size];
+        months = new int[size];
+        days = new int[size];
+        packedDates = new int[size];
+        epochDaysOut = new long[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            epochDays[i] = sorted ? firstEpochDay + (i * (lastEpochDay - firstEpochDay)) / size
+                    : firstEpochDay + (long) (random.nextDouble() * (lastEpochDay - firstEpochDay));
+            LocalDate localDate = LocalDate.ofEpochDay(epochDays[i]);
+            years[i] = localDate.getYear();
+            months[i] = localDate.getMonthValue();
+            days[i] = localDate.getDayOfMonth();
+        }
+        DateConverter.shared().gregorianToJalali(epochDays, packedDates, 0, size);
+    }
+
+    @Benchmark
+    public void loopGregorianToJalali(Blackhole blackhole)
+    {
+        DateConverter dateConverter = DateConverter.shared();
+        for (int i = 0; i < size; i++)
+            blackhole.consume(dateConverter.gregorianToJalali(years[i], months[i], days[i]));
+    }
+
+    @Benchmark
+    public int[] loopGregorianToJalaliPacked()
+    {
+        for (int i = 0; i < size; i++)
+            packedDates[i] = DateConverter.epochDayToJalaliPacked(epochDays[i]);
+        return packedDates;
+    }
+
+    @Benchmark
+    public int[] batchGregorianToJalali()
+    {
+        DateConverter.shared().gregorianToJalali(epochDays, packedDates, 0, size);
+        return packedDates;
+    }
+
+    @Benchmark
+    public int[] parallelGregorianToJalali()
+    {
+        DateConverter.shared().parallelGregorianToJalali(epochDays, packedDates, 0, size, 8192);
+        return packedDates;
+    }
+
+    @Benchmark
+    public void loopJalaliToGregorian(Blackhole blackhole)
+    {
+        DateConverter dateConverter = DateConverter.shared();
+        for (int i = 0; i < size; i++)
+        {
+            int packed = packedDates[i];
+            blackhole.consume(dateConverter.jalaliToGregorian(JalaliDate.packedYear(packed), JalaliDate.packedMonth(packed), JalaliDate.packedDay(packed)));
+        }
+    }
+
+    @Benchmark
+    public long[] batchJalaliToGregorian()
+    {
+        DateConverter.shared().jalaliToGregorian(packedDates, epochDaysOut, 0, size);
+        return epochDaysOut;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.eloyzone.jalalicalendar.benchmark;
+
+import com.github.eloyzone.jalalicalendar.ConversionCache;
+import com.github.eloyzone.jalalicalendar.DateConverter;
+import com.github.eloyzone.jalalicalendar.JalaliCalendarRules;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import com.github.eloyzone.jalalicalendar.JalaliDatePool;
+import com.github.eloyzone.jalalicalendar.MappedDateTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting one date at a time by each kind of {@link DateConverter}: the default converter, converters
+ * that use a pool, a cache or a mapped table, and a converter of arithmetic rules.
+ * <p>
+ * Each invocation converts the next date of {@value #DATES} random dates of years 1970 to 2050, so branches and
+ * caches see different dates like a real workload. Run it with {@code -prof gc} to see allocation of each path.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversionBenchmark
+{
+    // a power of two, so the next index is a mask
+    static final int DATES = 1024;
+
+    @Param({"default", "pool", "cache", "mappedTable", "cycle33"})
+    public String converter;
+
+    private DateConverter dateConverter;
+    private Path mappedTableFile;
+
+    private long[] epochDays;
+    private int[] years;
+    private int[] months;
+    private int[] days;
+    private JalaliDate[] jalaliDates;
+    private int index;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        switch (converter)
+        {
+            case "pool":
+                dateConverter = DateConverter.shared().withPool(new JalaliDatePool(1348, 1429));
+                break;
+            case "cache":
+                dateConverter = DateConverter.shared().withCache(new ConversionCache(DATES * 2));
+                break;
+            case "mappedTable":
+                mappedTableFile = Files.createTempFile("jalali-dates", ".bin");
+                MappedDateTable.write(mappedTableFile, 1348, 1429);
+                dateConverter = DateConverter.shared().withMappedTable(MappedDateTable.open(mappedTableFile));
+                break;
+            case "cycle33":
+                dateConverter = DateConverter.shared().withRules(JalaliCalendarRules.cycle33());
+                break;
+            default:
+                dateConverter = DateConverter.shared();
+        }
+
+        Random random = new Random(1397);
+        long firstEpochDay = LocalDate.of(1970, 1, 1).toEpochDay();
+        long lastEpochDay = LocalDate.of(2050, 1, 1).toEpochDay();
+
+        epochDays = new long[DATES];
+        years = new int[DATES];
+        months = new int[DATES];
+        days = new int[DATES];
+        jalaliDates = new JalaliDate[DATES];
+        for (int i = 0; i < DATES; i++)
+        {
+            epochDays[i] = firstEpochDay + (long) (random.nextDouble() * (lastEpochDay - firstEpochDay));
+            LocalDate localDate = LocalDate.ofEpochDay(epochDays[i]);
+            years[i] = localDate.getYear();
+            months[i] = localDate.getMonthValue();
+            days[i] = localDate.getDayOfMonth();
+            jalaliDates[i] = DateConverter.shared().ofEpochDay(epochDays[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        if (mappedTableFile != null)
+            Files.deleteIfExists(mappedTableFile);
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & (DATES - 1);
+    }
+
+    @Benchmark
+    public JalaliDate gregorianToJalali()
+    {
+        int i = next();
+        return dateConverter.gregorianToJalali(years[i], months[i], days[i]);
+    }
+
+    @Benchmark
+    public JalaliDate ofEpochDay()
+    {
+        return dateConverter.ofEpochDay(epochDays[next()]);
+    }
+
+    @Benchmark
+    public LocalDate jalaliToGregorian()
+    {
+        JalaliDate jalaliDate = jalaliDates[next()];
+        return dateConverter.jalaliToGregorian(jalaliDate.getYear(), jalaliDate.getMonthPersian().getValue(), jalaliDate.getDay());
+    }
+
+    @Benchmark
+    public long toEpochDay()
+    {
+        return dateConverter.toEpochDay(jalaliDates[next()]);
+    }
+
+    @Benchmark
+    public int gregorianToJalaliPacked()
+    {
+        int i = next();
+        return DateConverter.gregorianToJalaliPacked(years[i], months[i], days[i]);
+    }
+
+    @Benchmark
+    public long jalaliPackedToEpochDay()
+    {
+        return DateConverter.jalaliPackedToEpochDay(jalaliDates[next()].toPacked());
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.eloyzone.jalalicalendar.benchmark;
+
+import com.github.eloyzone.jalalicalendar.DateConverter;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import com.github.eloyzone.jalalicalendar.JalaliDateFormatter;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JalaliDateFormatter#format(JalaliDate)} for numeric and month name patterns in both languages.
+ * <p>
+ * {@code format} uses one formatter that is created once, {@code newFormatterAndFormat} creates a new formatter for
+ * each date like codes of README, so the difference is the cost of compiling a pattern. formatTo benchmarks write
+ * to a reused StringBuilder, char array and ByteBuffer like a log writer does, they should allocate nothing.
+ * {@code parse} reads the same dates back from formatted texts.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatterBenchmark
+{
+    static final int DATES = 1024;
+
+    @Param({"yyyy/mm/dd", "dd M yyyy"})
+    public String pattern;
+
+    @Param({"1", "2"})
+    public int formatLanguage;
+
+    private JalaliDateFormatter jalaliDateFormatter;
+    private JalaliDate[] jalaliDates;
+    private String[] texts;
+    private int index;
+    private final ParsePosition parsePosition = new ParsePosition(0);
+
+    private final StringBuilder stringBuilder = new StringBuilder(64);
+    private final char[] chars = new char[64];
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(64);
+
+    @Setup
+    public void setUp()
+    {
+        jalaliDateFormatter = new JalaliDateFormatter(pattern, formatLanguage);
+
+        Random random = new Random(1397);
+        long firstEpochDay = LocalDate.of(1970, 1, 1).toEpochDay();
+        jalaliDates = new JalaliDate[DATES];
+        texts = new String[DATES];
+        for (int i = 0; i < DATES; i++)
+        {
+            jalaliDates[i] = DateConverter.shared().ofEpochDay(firstEpochDay + random.nextInt(80 * 365));
+            texts[i] = jalaliDateFormatter.format(jalaliDates[i]);
+        }
+    }
+
+    private JalaliDate next()
+    {
+        index = (index + 1) & (DATES - 1);
+        return jalaliDates[index];
+    }
+
+    @Benchmark
+    public String format()
+    {
+        return jalaliDateFormatter.format(next());
+    }
+
+    @Benchmark
+    public String newFormatterAndFormat()
+    {
+        return new JalaliDateFormatter(pattern, formatLanguage).format(next());
+    }
+
+    @Benchmark
+    public StringBuilder formatToStringBuilder()
+    {
+        stringBuilder.setLength(0);
+        jalaliDateFormatter.formatTo(next(), stringBuilder);
+        return stringBuilder;
+    }
+
+    @Benchmark
+    public int formatToCharArray()
+    {
+        return jalaliDateFormatter.formatTo(next(), chars, 0);
+    }
+
+    @Benchmark
+    public int formatToByteBuffer()
+    {
+        byteBuffer.clear();
+        return jalaliDateFormatter.formatTo(next(), byteBuffer);
+    }
+
+    @Benchmark
+    public JalaliDate parse()
+    {
+        index = (index + 1) & (DATES - 1);
+        parsePosition.setIndex(0);
+        return jalaliDateFormatter.parse(texts[index], parsePosition);
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.eloyzone.jalalicalendar.benchmark;
+
+import com.github.eloyzone.jalalicalendar.DateConverter;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import com.github.eloyzone.jalalicalendar.JalaliDateFormatter;
+import com.github.eloyzone.jalalicalendar.JalaliIsoCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JalaliIsoCodec} on a column of fixed width dates, like a field of CSV lines, and compares it with
+ * decoding the same bytes to a string and parsing it by {@link JalaliDateFormatter#ISO_DATE}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IsoCodecBenchmark
+{
+    static final int DATES = 1024;
+
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private int[] packedDates;
+    private final byte[] output = new byte[JalaliIsoCodec.LENGTH];
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(1397);
+        long firstEpochDay = LocalDate.of(1970, 1, 1).toEpochDay();
+        bytes = new byte[DATES * JalaliIsoCodec.LENGTH];
+        packedDates = new int[DATES];
+        for (int i = 0; i < DATES; i++)
+        {
+            JalaliDate jalaliDate = DateConverter.shared().ofEpochDay(firstEpochDay + random.nextInt(80 * 365));
+            packedDates[i] = jalaliDate.toPacked();
+            JalaliIsoCodec.encode(jalaliDate, bytes, i * JalaliIsoCodec.LENGTH);
+        }
+        buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).clear();
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & (DATES - 1);
+    }
+
+    @Benchmark
+    public int decodePacked()
+    {
+        return JalaliIsoCodec.decodePacked(bytes, next() * JalaliIsoCodec.LENGTH);
+    }
+
+    @Benchmark
+    public int decodePackedByteBuffer()
+    {
+        return JalaliIsoCodec.decodePacked(buffer, next() * JalaliIsoCodec.LENGTH);
+    }
+
+    @Benchmark
+    public JalaliDate decode()
+    {
+        return JalaliIsoCodec.decode(bytes, next() * JalaliIsoCodec.LENGTH);
+    }
+
+    @Benchmark
+    public JalaliDate stringAndParse()
+    {
+        return JalaliDateFormatter.ISO_DATE.parse(new String(bytes, next() * JalaliIsoCodec.LENGTH, JalaliIsoCodec.LENGTH, StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public byte[] encodePacked()
+    {
+        JalaliIsoCodec.encodePacked(packedDates[next()], output, 0, JalaliIsoCodec.DASH);
+        return output;
+    }
+}
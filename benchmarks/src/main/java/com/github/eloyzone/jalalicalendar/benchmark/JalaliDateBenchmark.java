@@ -0,0 +1,126 @@
+package com.github.eloyzone.jalalicalendar.benchmark;
+
+import com.github.eloyzone.jalalicalendar.DateConverter;
+import com.github.eloyzone.jalalicalendar.DayOfWeekPersian;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures methods of {@link JalaliDate} itself: creating a date, its day of week, equality and leap years.
+ * <p>
+ * Leap years are measured by {@link DateConverter#isLeapYear(int)}, which reads a precomputed bitmap, and by
+ * {@code leapPersiana}, which compares Nowruz of the year and of the next year.
+ * <p>
+ * Dates are {@value #DATES} random days of jalali years 1348 to 1428, each invocation uses the next one.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JalaliDateBenchmark
+{
+    static final int DATES = 1024;
+
+    private int[] years;
+    private int[] months;
+    private int[] days;
+    private JalaliDate[] jalaliDates;
+    private JalaliDate[] equalDates;
+    private int index;
+
+    // leapPersiana is protected, so it's called through a subclass of this package
+    private static final class LeapPersianaConverter extends DateConverter
+    {
+        boolean isLeapPersiana(int year)
+        {
+            return leapPersiana(year);
+        }
+    }
+
+    private final LeapPersianaConverter leapPersianaConverter = new LeapPersianaConverter();
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(1397);
+        years = new int[DATES];
+        months = new int[DATES];
+        days = new int[DATES];
+        jalaliDates = new JalaliDate[DATES];
+        equalDates = new JalaliDate[DATES];
+        for (int i = 0; i < DATES; i++)
+        {
+            years[i] = 1348 + random.nextInt(81);
+            months[i] = 1 + random.nextInt(12);
+            days[i] = 1 + random.nextInt(months[i] <= 6 ? 31 : 29);
+            jalaliDates[i] = new JalaliDate(years[i], months[i], days[i]);
+            // half of them are equal to the date of same index and half are not
+            equalDates[i] = (i & 1) == 0 ? new JalaliDate(years[i], months[i], days[i])
+                    : new JalaliDate(years[i], months[i], days[i] == 1 ? 2 : 1);
+        }
+    }
+
+    private int next()
+    {
+        return index = (index + 1) & (DATES - 1);
+    }
+
+    @Benchmark
+    public JalaliDate newJalaliDate()
+    {
+        int i = next();
+        return new JalaliDate(years[i], months[i], days[i]);
+    }
+
+    @Benchmark
+    public JalaliDate of()
+    {
+        int i = next();
+        return JalaliDate.of(years[i], months[i], days[i]);
+    }
+
+    @Benchmark
+    public DayOfWeekPersian getDayOfWeek()
+    {
+        return jalaliDates[next()].getDayOfWeek();
+    }
+
+    @Benchmark
+    public boolean jalaliDateEquals()
+    {
+        int i = next();
+        return jalaliDates[i].equals(equalDates[i]);
+    }
+
+    @Benchmark
+    public int jalaliDateCompareTo()
+    {
+        int i = next();
+        return jalaliDates[i].compareTo(equalDates[i]);
+    }
+
+    @Benchmark
+    public int jalaliDateHashCode()
+    {
+        return jalaliDates[next()].hashCode();
+    }
+
+    @Benchmark
+    public boolean isLeapYear()
+    {
+        return DateConverter.isLeapYear(years[next()]);
+    }
+
+    @Benchmark
+    public boolean leapPersiana()
+    {
+        return leapPersianaConverter.isLeapPersiana(years[next()]);
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.eloyzone.jalalicalendar.benchmark;
+
+import com.github.eloyzone.jalalicalendar.ConversionCache;
+import com.github.eloyzone.jalalicalendar.DateConverter;
+import com.github.eloyzone.jalalicalendar.JalaliDate;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one converter that is shared by 1, 2, 4 and all available threads, to show how conversion scales and
+ * whether threads slow each other down on shared state like the cache and its counters.
+ * <p>
+ * Results are time of one conversion in each thread, so a path that scales well has the same score for all numbers
+ * of threads. The converter is the {@code converter} parameter, the default one or one with a shared cache.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadedConversionBenchmark
+{
+    static final int DATES = 1024;
+
+    @State(Scope.Benchmark)
+    public static class SharedConverter
+    {
+        @Param({"default", "cache"})
+        public String converter;
+
+        private DateConverter dateConverter;
+
+        @Setup
+        public void setUp()
+        {
+            dateConverter = "cache".equals(converter) ? DateConverter.shared().withCache(new ConversionCache(DATES * 2))
+                    : DateConverter.shared();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadDates
+    {
+        private long[] epochDays;
+        private int index;
+
+        @Setup
+        public void setUp()
+        {
+            Random random = new Random(1397);
+            long firstEpochDay = LocalDate.of(1970, 1, 1).toEpochDay();
+            epochDays = new long[DATES];
+            for (int i = 0; i < DATES; i++)
+                epochDays[i] = firstEpochDay + random.nextInt(80 * 365);
+        }
+
+        private long next()
+        {
+            index = (index + 1) & (DATES - 1);
+            return epochDays[index];
+        }
+    }
+
+    private static JalaliDate convert(SharedConverter sharedConverter, ThreadDates threadDates)
+    {
+        return sharedConverter.dateConverter.ofEpochDay(threadDates.next());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JalaliDate oneThread(SharedConverter sharedConverter, ThreadDates threadDates)
+    {
+        return convert(sharedConverter, threadDates);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public JalaliDate twoThreads(SharedConverter sharedConverter, ThreadDates threadDates)
+    {
+        return convert(sharedConverter, threadDates);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JalaliDate fourThreads(SharedConverter sharedConverter, ThreadDates threadDates)
+    {
+        return convert(sharedConverter, threadDates);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public JalaliDate maxThreads(SharedConverter sharedConverter, ThreadDates threadDates)
+    {
+        return convert(sharedConverter, threadDates);
+    }
+}
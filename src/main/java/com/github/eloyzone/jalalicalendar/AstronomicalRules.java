@@ -0,0 +1,54 @@
+package com.github.eloyzone.jalalicalendar;
+
+/**
+ * This class is the rule of vernal equinox in Tehran, it uses DateConverter's precomputed table and astronomical
+ * calculation. It's the reference that other rules are compared with, so all years are verified.
+ * <p>
+ * This class is protected by this package, use {@link JalaliCalendarRules#astronomical()}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+final class AstronomicalRules implements JalaliCalendarRules
+{
+    static final AstronomicalRules INSTANCE = new AstronomicalRules();
+
+    private AstronomicalRules()
+    {
+    }
+
+    @Override
+    public long nowruzEpochDay(int year)
+    {
+        return DateConverter.nowruzEpochDay(year);
+    }
+
+    @Override
+    public int yearOfEpochDay(long epochDay)
+    {
+        return DateConverter.jalaliYearOfEpochDay(epochDay);
+    }
+
+    @Override
+    public boolean isLeapYear(int year)
+    {
+        return DateConverter.isLeapYear(year);
+    }
+
+    @Override
+    public int getFirstVerifiedYear()
+    {
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public int getLastVerifiedYear()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "astronomical";
+    }
+}
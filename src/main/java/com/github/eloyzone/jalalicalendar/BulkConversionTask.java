@@ -0,0 +1,131 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class splits a range of epoch days in halves until each part is not longer than a threshold, then each part
+ * is converted to packed jalali dates by bulk conversion of DateConverter. parts are converted by threads of a
+ * {@link java.util.concurrent.ForkJoinPool}.
+ * <p>
+ * This class is protected by this package and just will be used by DateConverter class.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see DateConverter#parallelGregorianToJalali(long[], int[], int, int, int)
+ */
+// ForkJoinTask is serializable, but tasks are never serialized since they only live while a conversion runs, so
+// converters and buffers of their fields do not need to be serializable
+@SuppressWarnings("serial")
+abstract class BulkConversionTask extends RecursiveAction
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final DateConverter dateConverter;
+    protected final int fromIndex;
+    protected final int toIndex;
+    protected final int sequentialThreshold;
+
+    protected BulkConversionTask(DateConverter dateConverter, int fromIndex, int toIndex, int sequentialThreshold)
+    {
+        this.dateConverter = dateConverter;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    protected void compute()
+    {
+        if (toIndex - fromIndex <= sequentialThreshold)
+        {
+            convert();
+        } else
+        {
+            int middle = (fromIndex + toIndex) >>> 1;
+            invokeAll(split(fromIndex, middle), split(middle, toIndex));
+        }
+    }
+
+    protected abstract BulkConversionTask split(int fromIndex, int toIndex);
+
+    protected abstract void convert();
+
+    /*
+        epoch days and packed dates are in arrays, same indexes of both arrays are used.
+     */
+    static final class OfArray extends BulkConversionTask
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] epochDays;
+        private final int[] packedOut;
+
+        OfArray(DateConverter dateConverter, long[] epochDays, int[] packedOut, int fromIndex, int toIndex, int sequentialThreshold)
+        {
+            super(dateConverter, fromIndex, toIndex, sequentialThreshold);
+            this.epochDays = epochDays;
+            this.packedOut = packedOut;
+        }
+
+        @Override
+        protected BulkConversionTask split(int fromIndex, int toIndex)
+        {
+            return new OfArray(dateConverter, epochDays, packedOut, fromIndex, toIndex, sequentialThreshold);
+        }
+
+        @Override
+        protected void convert()
+        {
+            dateConverter.gregorianToJalali(epochDays, packedOut, fromIndex, toIndex);
+        }
+    }
+
+    /*
+        epoch days and packed dates are in buffers, indexes are absolute indexes of epochDays buffer and packed date
+        of index i is written to index i + outputShift of packedOut. only absolute get and put are used, so threads
+        can share the buffers.
+     */
+    static final class OfBuffer extends BulkConversionTask
+    {
+        private static final long serialVersionUID = 1L;
+
+        private static final int CHUNK_SIZE = 1024;
+
+        private final IntBuffer epochDays;
+        private final IntBuffer packedOut;
+        private final int outputShift;
+
+        OfBuffer(DateConverter dateConverter, IntBuffer epochDays, IntBuffer packedOut, int outputShift, int fromIndex, int toIndex, int sequentialThreshold)
+        {
+            super(dateConverter, fromIndex, toIndex, sequentialThreshold);
+            this.epochDays = epochDays;
+            this.packedOut = packedOut;
+            this.outputShift = outputShift;
+        }
+
+        @Override
+        protected BulkConversionTask split(int fromIndex, int toIndex)
+        {
+            return new OfBuffer(dateConverter, epochDays, packedOut, outputShift, fromIndex, toIndex, sequentialThreshold);
+        }
+
+        @Override
+        protected void convert()
+        {
+            long[] epochDayChunk = new long[Math.min(CHUNK_SIZE, toIndex - fromIndex)];
+            int[] packedChunk = new int[epochDayChunk.length];
+
+            for (int chunkStart = fromIndex; chunkStart < toIndex; chunkStart += epochDayChunk.length)
+            {
+                int length = Math.min(epochDayChunk.length, toIndex - chunkStart);
+                for (int i = 0; i < length; i++)
+                    epochDayChunk[i] = epochDays.get(chunkStart + i);
+
+                dateConverter.gregorianToJalali(epochDayChunk, packedChunk, 0, length);
+
+                for (int i = 0; i < length; i++)
+                    packedOut.put(chunkStart + i + outputShift, packedChunk[i]);
+            }
+        }
+    }
+}
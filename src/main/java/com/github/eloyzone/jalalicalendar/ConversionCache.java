@@ -0,0 +1,237 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps results of recent conversions, so dates that are converted again and again (like birthdays or
+ * due dates of contracts) are read from memory instead of being calculated.
+ * <p>
+ * The cache has a fixed number of entries that is chosen when it is created. Each date can only be kept in a small
+ * set of {@value #WAYS} entries and when its set is full one of them is evicted by CLOCK (second chance) algorithm:
+ * every entry has a referenced flag that is set when it's used, entries whose flag is set are skipped once and their
+ * flag is cleared, so recently used dates stay in the cache.
+ * <p>
+ * Reading the cache needs no lock, entries are immutable objects in an {@link AtomicReferenceArray} and a new entry
+ * is written with compare and set, so many threads can use the same cache without waiting for each other. Counters
+ * are {@link LongAdder} objects for the same reason. When two threads write the same set at the same time one of the
+ * results may not be kept, that's only a miss in the future and never a wrong result.
+ * <p>
+ * A cache is used by a {@link DateConverter} that is created with {@link DateConverter#withCache(ConversionCache)}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see DateConverter#withCache(ConversionCache)
+ */
+public final class ConversionCache
+{
+    // number of entries of a set, each date can only be kept in one set
+    private static final int WAYS = 4;
+
+    private final int capacity;
+    private final Table<JalaliDate> jalaliDates;
+    private final Table<LocalDate> gregorianDates;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * creates a cache that keeps up to capacity jalali dates and capacity gregorian dates.
+     *
+     * @param capacity number of dates of each direction, it's rounded up to a power of two and at least {@value #WAYS}
+     * @exception IllegalArgumentException if capacity is not positive or is larger than 2^30.
+     */
+    public ConversionCache(int capacity)
+    {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Wrong value for capacity, it must be from 1 to 2^30");
+
+        this.capacity = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.jalaliDates = new Table<>(this.capacity);
+        this.gregorianDates = new Table<>(this.capacity);
+    }
+
+    /**
+     * @param epochDay number of days since 1970-01-01
+     * @return cached jalali date of the epoch day, or null if it's not in the cache
+     */
+    JalaliDate getJalaliDate(long epochDay)
+    {
+        return count(jalaliDates.get(epochDay));
+    }
+
+    void putJalaliDate(long epochDay, JalaliDate jalaliDate)
+    {
+        if (jalaliDates.put(epochDay, jalaliDate))
+            evictionCount.increment();
+    }
+
+    /**
+     * @param packed jalali date packed by {@link JalaliDate#pack(int, int, int)}
+     * @return cached gregorian date of the jalali date, or null if it's not in the cache
+     */
+    LocalDate getGregorianDate(int packed)
+    {
+        return count(gregorianDates.get(packed));
+    }
+
+    void putGregorianDate(int packed, LocalDate localDate)
+    {
+        if (gregorianDates.put(packed, localDate))
+            evictionCount.increment();
+    }
+
+    private <V> V count(V value)
+    {
+        if (value == null)
+            missCount.increment();
+        else
+            hitCount.increment();
+        return value;
+    }
+
+    /**
+     * @return number of dates of each direction that can be kept
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return number of conversions that were found in the cache
+     */
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return number of conversions that were not found in the cache and were calculated
+     */
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+
+    /**
+     * @return number of dates that were removed to make room for other dates
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount.sum();
+    }
+
+    /**
+     * removes all dates of the cache, counters are not changed.
+     */
+    public void clear()
+    {
+        jalaliDates.clear();
+        gregorianDates.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConversionCache[capacity=" + capacity + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    private static final class Entry<V>
+    {
+        private final long key;
+        private final V value;
+        // racy on purpose, a lost update only changes which entry is evicted
+        private volatile boolean referenced;
+
+        private Entry(long key, V value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /*
+        entries of set s are at indexes s * WAYS to s * WAYS + WAYS - 1. hands are positions of the CLOCK of each
+        set, they are plain ints as a stale hand only starts the search from another entry.
+     */
+    private static final class Table<V>
+    {
+        private final AtomicReferenceArray<Entry<V>> entries;
+        private final int[] hands;
+        private final int setMask;
+
+        private Table(int capacity)
+        {
+            entries = new AtomicReferenceArray<>(capacity);
+            hands = new int[capacity / WAYS];
+            setMask = hands.length - 1;
+        }
+
+        private int setOf(long key)
+        {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & setMask;
+        }
+
+        private V get(long key)
+        {
+            int first = setOf(key) * WAYS;
+            for (int i = first; i < first + WAYS; i++)
+            {
+                Entry<V> entry = entries.get(i);
+                if (entry != null && entry.key == key)
+                {
+                    // only written when it changes, so hits of many threads do not write the same cache line
+                    if (!entry.referenced)
+                        entry.referenced = true;
+                    return entry.value;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return true if another entry was evicted
+         */
+        private boolean put(long key, V value)
+        {
+            int set = setOf(key);
+            int first = set * WAYS;
+            Entry<V> newEntry = new Entry<>(key, value);
+
+            for (int i = first; i < first + WAYS; i++)
+            {
+                Entry<V> entry = entries.get(i);
+                if (entry == null && entries.compareAndSet(i, null, newEntry))
+                    return false;
+                if (entry != null && entry.key == key)
+                    return false;
+            }
+
+            // every entry gets a second chance, so after at most WAYS + 1 steps an entry without flag is found
+            int hand = hands[set];
+            for (int step = 0; step <= WAYS; step++, hand = (hand + 1) & (WAYS - 1))
+            {
+                Entry<V> entry = entries.get(first + hand);
+                if (entry != null && entry.referenced)
+                {
+                    entry.referenced = false;
+                    continue;
+                }
+
+                hands[set] = (hand + 1) & (WAYS - 1);
+                return entries.compareAndSet(first + hand, entry, newEntry) && entry != null;
+            }
+            return false;
+        }
+
+        private void clear()
+        {
+            for (int i = 0; i < entries.length(); i++)
+                entries.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.eloyzone.jalalicalendar;
+
+/**
+ * This class is the arithmetic calendar of Birashk, years are grouped in cycles of 2820 years that have 683 leap
+ * years. It's the integer version of the persianToJd and jdToPersian functions of fourmilab's calendar converter
+ * that used to be unused in DateConverter.
+ * <p>
+ * Years are counted astronomically, year 0 is the year before 1, so it agrees with other rules for years before 1.
+ * Days of years 1343 to 1402 are the same as astronomical rule, the first differences are 1342 and 1403.
+ * <p>
+ * This class is protected by this package, use {@link JalaliCalendarRules#cycle2820()}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+final class Cycle2820Rules implements JalaliCalendarRules
+{
+    static final Cycle2820Rules INSTANCE = new Cycle2820Rules();
+
+    // days of a 2820-year cycle
+    private static final long DAYS_OF_CYCLE = 1029983;
+    // epoch day of 1 Farvardin 475, the first year of a cycle
+    private static final long CYCLE_EPOCH_DAY = nowruzEpochDayOf(475);
+
+    private Cycle2820Rules()
+    {
+    }
+
+    private static long nowruzEpochDayOf(long year)
+    {
+        long epochBase = year - 474;
+        long epochYear = 474 + Math.floorMod(epochBase, 2820);
+
+        return Math.floorDiv(epochYear * 682 - 110, 2816) + (epochYear - 1) * 365
+                + Math.floorDiv(epochBase, 2820) * DAYS_OF_CYCLE + (1948320 - 2440587);
+    }
+
+    @Override
+    public long nowruzEpochDay(int year)
+    {
+        return nowruzEpochDayOf(year);
+    }
+
+    @Override
+    public int yearOfEpochDay(long epochDay)
+    {
+        long daysOfEpoch = epochDay - CYCLE_EPOCH_DAY;
+        long cycle = Math.floorDiv(daysOfEpoch, DAYS_OF_CYCLE);
+        long dayOfCycle = Math.floorMod(daysOfEpoch, DAYS_OF_CYCLE);
+
+        long yearOfCycle;
+        if (dayOfCycle == DAYS_OF_CYCLE - 1)
+        {
+            yearOfCycle = 2820;
+        } else
+        {
+            long aux1 = dayOfCycle / 366;
+            long aux2 = dayOfCycle % 366;
+            yearOfCycle = (2134 * aux1 + 2816 * aux2 + 2815) / 1028522 + aux1 + 1;
+        }
+        return (int) (yearOfCycle + 2820 * cycle + 474);
+    }
+
+    @Override
+    public boolean isLeapYear(int year)
+    {
+        return (((Math.floorMod(year - 474L, 2820) + 474) + 38) * 682) % 2816 < 682;
+    }
+
+    @Override
+    public int getFirstVerifiedYear()
+    {
+        return 1343;
+    }
+
+    @Override
+    public int getLastVerifiedYear()
+    {
+        return 1402;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "2820-year cycle";
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.eloyzone.jalalicalendar;
+
+/**
+ * This class is the arithmetic calendar of 33-year cycles, year y is a leap year if {@code (8y + 29) mod 33 < 8}, so
+ * each cycle has 8 leap years and the beginning of a year is a closed formula.
+ * <p>
+ * Days of years 1343 to 1472 are the same as astronomical rule, the first differences are 1342 and 1473.
+ * <p>
+ * This class is protected by this package, use {@link JalaliCalendarRules#cycle33()}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+final class Cycle33Rules implements JalaliCalendarRules
+{
+    static final Cycle33Rules INSTANCE = new Cycle33Rules();
+
+    // days of a 33-year cycle
+    private static final long DAYS_OF_CYCLE = 33 * 365 + 8;
+    /*
+        leap years before year y are floorDiv(8y + 21, 33) plus a constant, the constant is chosen so Nowruz of years
+        around 1400 is the same as astronomical rule, it's one day before Nowruz of year 1 of astronomical rule.
+     */
+    private static final long BASE_EPOCH_DAY = (1948319 - 2440587);
+
+    private Cycle33Rules()
+    {
+    }
+
+    @Override
+    public long nowruzEpochDay(int year)
+    {
+        return BASE_EPOCH_DAY + 365L * (year - 1) + Math.floorDiv(8L * year + 21, 33);
+    }
+
+    @Override
+    public int yearOfEpochDay(long epochDay)
+    {
+        // a guess from average length of year is at most one year wrong
+        int year = (int) Math.floorDiv((epochDay - nowruzEpochDay(1)) * 33, DAYS_OF_CYCLE) + 1;
+        if (nowruzEpochDay(year) > epochDay)
+            year--;
+        else if (nowruzEpochDay(year + 1) <= epochDay)
+            year++;
+        return year;
+    }
+
+    @Override
+    public boolean isLeapYear(int year)
+    {
+        return Math.floorMod(8L * year + 29, 33) < 8;
+    }
+
+    @Override
+    public int getFirstVerifiedYear()
+    {
+        return 1343;
+    }
+
+    @Override
+    public int getLastVerifiedYear()
+    {
+        return 1472;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "33-year cycle";
+    }
+}
@@ -1,7 +1,11 @@
 package com.github.eloyzone.jalalicalendar;
 
+import java.nio.IntBuffer;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Created by Eloy on 4/17/2017.
@@ -16,15 +20,203 @@ import java.time.Month;
  */
 public class DateConverter
 {
-    private double juliandayDayValue;
-    private double persianaYearValue;
-    private double persianaMonthSelectedIndex;
-    private double persianaDayValue;
-    private int persianaWeekDay;
-    private double gregorianYearValue;
-    private double gregorianMonthSelectedIndex;
-    private double gregorianDayValue;
+    /*
+        julian day of 1970-01-01 (epoch day zero) in the same convention that persianaToJd returns, so
+        epochDay = julianDay - EPOCH_DAY_JD.
+     */
+    private static final int EPOCH_DAY_JD = 2440587;
+
+    private static final DateConverter SHARED = new DateConverter();
+
+    // shared objects of frequently used dates, null if this converter always creates new objects
+    private final JalaliDatePool pool;
+    // results of recent conversions, null if this converter calculates every conversion
+    private final ConversionCache cache;
+    // dates of a file that is shared by JVMs, null if this converter only uses its own tables
+    private final MappedDateTable mappedTable;
+    // when each year begins, pool, cache and mapped table have astronomical dates so they are only used by that rule
+    private final JalaliCalendarRules rules;
+    private final boolean astronomical;
+    // days that rules convert the same as astronomical rule, from first day inclusive to end exclusive
+    private final long firstVerifiedEpochDay;
+    private final long endVerifiedEpochDay;
+
+    /**
+     * creates a converter of astronomical calendar that returns a new JalaliDate object for every conversion.
+     */
+    public DateConverter()
+    {
+        this(null, null, null, JalaliCalendarRules.astronomical());
+    }
+
+    private DateConverter(JalaliDatePool pool, ConversionCache cache, MappedDateTable mappedTable, JalaliCalendarRules rules)
+    {
+        this.pool = pool;
+        this.cache = cache;
+        this.mappedTable = mappedTable;
+        this.rules = rules;
+        this.astronomical = rules == JalaliCalendarRules.astronomical();
+        this.firstVerifiedEpochDay = (astronomical || rules.getFirstVerifiedYear() == Integer.MIN_VALUE) ? Long.MIN_VALUE
+                : rules.nowruzEpochDay(rules.getFirstVerifiedYear());
+        this.endVerifiedEpochDay = (astronomical || rules.getLastVerifiedYear() == Integer.MAX_VALUE) ? Long.MAX_VALUE
+                : rules.nowruzEpochDay(rules.getLastVerifiedYear() + 1);
+    }
+
+    /**
+     * returns a shared instance of DateConverter.
+     * <p>
+     * DateConverter does not keep any state between conversions, all of its tables are constant and every
+     * conversion only uses local variables, so a single instance can be used by many threads at the same time.
+     * The shared instance uses astronomical rules and has no pool, no cache and no mapped table, see
+     * {@link #withRules(JalaliCalendarRules)}, {@link #withPool(JalaliDatePool)}, {@link #withCache(ConversionCache)}
+     * and {@link #withMappedTable(MappedDateTable)}.
+     *
+     * @return shared DateConverter object
+     */
+    public static DateConverter shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * returns a converter that does the same conversions as this one, but returns shared objects of provided pool for
+     * dates inside the window of the pool, so they are converted without creating any object.
+     * <p>
+     * This converter is not changed and the returned one can also be used by many threads at the same time.
+     *
+     * @param pool shared dates, or null to create a new JalaliDate object for every conversion
+     * @return DateConverter object that uses the pool
+     * @see JalaliDatePool
+     */
+    public DateConverter withPool(JalaliDatePool pool)
+    {
+        return new DateConverter(pool, cache, mappedTable, rules);
+    }
+
+    /**
+     * @return pool of shared dates that this converter uses, or null if it has no pool
+     */
+    public JalaliDatePool getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * returns a converter that does the same conversions as this one, but keeps results of conversions of
+     * {@link JalaliDate} and {@link LocalDate} objects in provided cache and reads them from it when the same date is
+     * converted again. Dates inside the window of a pool are taken from the pool and are not kept in the cache.
+     * <p>
+     * This converter is not changed, a cache can be used by many converters and threads at the same time. The cache
+     * is only used by astronomical rule, other rules are closed formulas that are faster than a lookup.
+     *
+     * @param cache results of recent conversions, or null to calculate every conversion
+     * @return DateConverter object that uses the cache
+     * @see ConversionCache
+     */
+    public DateConverter withCache(ConversionCache cache)
+    {
+        return new DateConverter(pool, cache, mappedTable, rules);
+    }
+
+    /**
+     * @return cache of recent conversions that this converter uses, or null if it has no cache
+     */
+    public ConversionCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * returns a converter that does the same conversions as this one, but reads dates inside the years of provided
+     * table from the table, which is a file that is mapped to memory and can be shared by all JVMs of a host. Dates
+     * outside of the table are converted as before.
+     * <p>
+     * This converter is not changed and the returned one can also be used by many threads at the same time.
+     *
+     * @param mappedTable dates of a file that is opened by {@link MappedDateTable#open(java.nio.file.Path)}, or null
+     *                    to only use tables of this JVM
+     * @return DateConverter object that uses the table
+     * @see MappedDateTable
+     */
+    public DateConverter withMappedTable(MappedDateTable mappedTable)
+    {
+        return new DateConverter(pool, cache, mappedTable, rules);
+    }
+
+    /**
+     * @return mapped table that this converter uses, or null if it has no mapped table
+     */
+    public MappedDateTable getMappedTable()
+    {
+        return mappedTable;
+    }
+
+    /**
+     * returns a converter that does the same conversions as this one, but decides when each jalali year begins by
+     * provided rules, for example a closed formula that needs no table for latency-critical code.
+     * <p>
+     * Dates are only converted between {@link JalaliCalendarRules#getFirstVerifiedYear()} and
+     * {@link JalaliCalendarRules#getLastVerifiedYear()} of the rules, where they are the same as astronomical rule,
+     * other dates throw IllegalArgumentException. {@link JalaliDate} and static methods of this class always use
+     * astronomical rule, so a date of other rules outside of that range would not agree with its own day of week,
+     * epoch day and leap year.
+     * <p>
+     * Pool and mapped table of this converter have dates of astronomical rule, so they are only used when rules are
+     * {@link JalaliCalendarRules#astronomical()}. Cache keeps results without their rules, so the returned converter
+     * has no cache when rules are changed.
+     *
+     * @param rules rules of the calendar, not null
+     * @return DateConverter object that uses the rules
+     * @see JalaliCalendarRules
+     */
+    public DateConverter withRules(JalaliCalendarRules rules)
+    {
+        Objects.requireNonNull(rules, "rules");
+        return new DateConverter(pool, rules == this.rules ? cache : null, mappedTable, rules);
+    }
+
+    /**
+     * @return rules of the calendar that this converter uses
+     */
+    public JalaliCalendarRules getRules()
+    {
+        return rules;
+    }
+
+    // packed jalali date of an epoch day by rules of this converter, from the mapped table if it has one that covers the day
+    private int packedOfEpochDay(long epochDay)
+    {
+        if (!astronomical)
+        {
+            checkVerified(epochDay);
+            int year = rules.yearOfEpochDay(epochDay);
+            int dayOfYear = (int) (epochDay - rules.nowruzEpochDay(year));
+            int month = monthOfDayOfYear(dayOfYear);
+            return JalaliDate.pack(year, month, dayOfYear - daysBeforeMonth(month) + 1);
+        }
+        if (mappedTable != null && mappedTable.coversEpochDay(epochDay))
+            return mappedTable.packedOfEpochDay(epochDay);
+        return epochDayToJalaliPacked(epochDay);
+    }
 
+    // epoch day of a jalali date, month and day can be out of their range just like jalaliToEpochDay
+    private long epochDayOfJalali(int year, int month, int day)
+    {
+        if (!astronomical)
+            return checkVerified(rules.nowruzEpochDay(year) + daysBeforeMonth(month) + day - 1);
+        if (mappedTable != null && mappedTable.coversYear(year))
+            return mappedTable.nowruzEpochDay(year) + daysBeforeMonth(month) + day - 1;
+        return jalaliToEpochDay(year, month, day);
+    }
+
+    // days of other rules outside of their verified years would make dates that JalaliDate does not agree with
+    private long checkVerified(long epochDay)
+    {
+        if (epochDay < firstVerifiedEpochDay || epochDay >= endVerifiedEpochDay)
+            throw new IllegalArgumentException("Wrong value for date, " + rules + " rules are only used for years "
+                    + rules.getFirstVerifiedYear() + " to " + rules.getLastVerifiedYear());
+        return epochDay;
+    }
 
     /**
      * converts jalali date based on input arguments to gregorian date.
@@ -74,14 +266,17 @@ public class DateConverter
     {
         validateDateValues(year, month, day);
 
-        persianaYearValue = year;
-        persianaMonthSelectedIndex = month - 1;
-        persianaDayValue = day;
-
-        setJulian(persianaToJd((persianaYearValue), persianaMonthSelectedIndex + 1, persianaDayValue) + 0.5);
-
-        LocalDate localDate = LocalDate.of((int) gregorianYearValue, (int) gregorianMonthSelectedIndex + 1, (int) gregorianDayValue);
+        // lenient values like month 0 or 13 can not be packed, so they are not cached
+        if (cache == null || !astronomical || month < 1 || month > 12 || day < 1 || day > 31 || year > JalaliDate.MAX_YEAR)
+            return LocalDate.ofEpochDay(epochDayOfJalali(year, month, day));
 
+        int packed = JalaliDate.pack(year, month, day);
+        LocalDate localDate = cache.getGregorianDate(packed);
+        if (localDate == null)
+        {
+            localDate = LocalDate.ofEpochDay(epochDayOfJalali(year, month, day));
+            cache.putGregorianDate(packed, localDate);
+        }
         return localDate;
     }
 
@@ -105,24 +300,361 @@ public class DateConverter
     {
         validateDateValues(year,month,day);
 
-        updateFromGregorian(year, month - 1, day);
+        return ofEpochDay(gregorianToEpochDay(year, month, day));
+    }
 
-        int persianYear = (int) persianaYearValue;
-        int persianMonth = (int) (persianaMonthSelectedIndex);
-        int persianDay = (int) persianaDayValue;
+    /**
+     * converts jalali date to its epoch day, the same count of days from 1970-01-01 that
+     * {@link LocalDate#toEpochDay()} uses.
+     *
+     * @param jalaliDate will be converted to epoch day
+     * @return number of days since 1970-01-01, negative for dates before it
+     */
+    public long toEpochDay(JalaliDate jalaliDate)
+    {
+        return epochDayOfJalali(jalaliDate.getYear(), jalaliDate.getMonthPersian().getValue(), jalaliDate.getDay());
+    }
+
+    /**
+     * converts an epoch day, the same value that {@link LocalDate#toEpochDay()} returns, to jalali date.
+     * <p>
+     * If this converter has a pool and the date is inside its window, the shared object of the pool is returned,
+     * otherwise if it has a cache the date is looked up in the cache.
+     *
+     * @param epochDay number of days since 1970-01-01
+     * @return JalaliDate object
+     * @see JalaliDate
+     * @see #withPool(JalaliDatePool)
+     */
+    public JalaliDate ofEpochDay(long epochDay)
+    {
+        if (pool != null && astronomical)
+        {
+            JalaliDate pooled = pool.get(epochDay);
+            if (pooled != null)
+                return pooled;
+        }
 
-        JalaliDate jalaliDate = new JalaliDate();
-        jalaliDate.setYear(persianYear);
-        jalaliDate.setMonthPersian(MonthPersian.getEnum(persianMonth));
-        jalaliDate.setDay(persianDay);
-        jalaliDate.setDayOfWeekPersian(DayOfWeekPersian.getEnum(persianaWeekDay));
+        if (cache == null || !astronomical)
+            return JalaliDate.ofValidPacked(packedOfEpochDay(epochDay));
 
+        JalaliDate jalaliDate = cache.getJalaliDate(epochDay);
+        if (jalaliDate == null)
+        {
+            jalaliDate = JalaliDate.ofValidPacked(packedOfEpochDay(epochDay));
+            cache.putJalaliDate(epochDay, jalaliDate);
+        }
         return jalaliDate;
     }
 
-    protected DayOfWeekPersian getDayOfWeekPersian(JalaliDate jalaliDate)
+    /**
+     * converts gregorian date to a jalali date that is packed in an int, see {@link JalaliDate#pack(int, int, int)}.
+     * <p>
+     * Packed dates can be kept in int arrays and they are sorted just like the dates they represent.
+     *
+     * @param year  gregorian positive year
+     * @param month starts from 1 to 12, but it can be more than 12 as it tires to shift to next year
+     * @param day   positive gregorian day, it can be more than 31 and automatically it tries to shift to next month
+     * @return jalali date packed as {@code year << 9 | month << 5 | day}
+     * @throws IllegalArgumentException if values are negative.
+     */
+    public static int gregorianToJalaliPacked(int year, int month, int day)
+    {
+        validateDateValues(year, month, day);
+        return epochDayToJalaliPacked(gregorianToEpochDay(year, month, day));
+    }
+
+    /**
+     * converts an epoch day, the same value that {@link LocalDate#toEpochDay()} returns, to a packed jalali date.
+     *
+     * @param epochDay number of days since 1970-01-01
+     * @return jalali date packed as {@code year << 9 | month << 5 | day}
+     * @see JalaliDate#pack(int, int, int)
+     */
+    public static int epochDayToJalaliPacked(long epochDay)
+    {
+        int year = jalaliYearOfEpochDay(epochDay);
+        int dayOfYear = (int) (epochDay - nowruzEpochDay(year));
+        int month = monthOfDayOfYear(dayOfYear);
+
+        return JalaliDate.pack(year, month, dayOfYear - daysBeforeMonth(month) + 1);
+    }
+
+    /**
+     * converts a packed jalali date to its epoch day.
+     *
+     * @param packed jalali date packed by {@link JalaliDate#pack(int, int, int)}
+     * @return number of days since 1970-01-01, the same value that {@link LocalDate#toEpochDay()} returns
+     */
+    public static long jalaliPackedToEpochDay(int packed)
+    {
+        return jalaliToEpochDay(JalaliDate.packedYear(packed), JalaliDate.packedMonth(packed), JalaliDate.packedDay(packed));
+    }
+
+    /**
+     * converts gregorian date to jalali date without creating any object, year, month and day of jalali date are
+     * written to the first three elements of the given array.
+     * <p>
+     * It's useful when lots of dates are converted and a JalaliDate object is not needed for each of them.
+     *
+     * @param year   gregorian positive year
+     * @param month  starts from 1 to 12, but it can be more than 12 as it tires to shift to next year
+     * @param day    positive gregorian day, it can be more than 31 and automatically it tries to shift to next month
+     * @param result an array with at least three elements that receives jalali year, month (1 to 12) and day
+     * @throws IllegalArgumentException if values are negative.
+     */
+    public void gregorianToJalali(int year, int month, int day, int[] result)
+    {
+        validateDateValues(year, month, day);
+
+        int packed = packedOfEpochDay(gregorianToEpochDay(year, month, day));
+
+        result[0] = JalaliDate.packedYear(packed);
+        result[1] = JalaliDate.packedMonth(packed);
+        result[2] = JalaliDate.packedDay(packed);
+    }
+
+    /**
+     * converts jalali date to its epoch day without creating any object.
+     *
+     * @param year  positive jalali year value
+     * @param month starts from 1 to 12, but it can be more than 12 as it tires to shift to next year
+     * @param day   positive jalali day, it can be more than 31 and automatically it tries to shift to next month
+     * @return number of days since 1970-01-01, the same value that {@link LocalDate#toEpochDay()} returns
+     * @throws IllegalArgumentException if values are negative.
+     */
+    public long toEpochDay(int year, int month, int day)
+    {
+        validateDateValues(year, month, day);
+        return epochDayOfJalali(year, month, day);
+    }
+
+    /**
+     * checks whether provided jalali year is a leap year, which means its last month (Esfand) has 30 days.
+     * <p>
+     * For years 1 to 9999 the answer is read from a bitmap that is precomputed when the library is built, other years
+     * are calculated astronomically once and cached.
+     *
+     * @param year jalali year, not after {@link JalaliDate#MAX_YEAR}
+     * @return true if the year has 366 days
+     * @throws IllegalArgumentException if year is too far from the precomputed years to be calculated.
+     */
+    public static boolean isLeapYear(int year)
+    {
+        if (NowruzTable.covers(year))
+            return NowruzTable.isLeapYear(year);
+        return isAstronomicalLeapYear(year);
+    }
+
+    /**
+     * converts a range of epoch days to packed jalali dates, see {@link JalaliDate#pack(int, int, int)}.
+     * <p>
+     * It's the bulk version of {@link #epochDayToJalaliPacked(long)}. Input does not need to be sorted, while input
+     * is sorted or grouped by year the beginning and end of the current jalali year are kept between elements, so
+     * consecutive days of the same year only need a few integer operations.
+     *
+     * @param epochDays  days since 1970-01-01, the same values that {@link LocalDate#toEpochDay()} returns
+     * @param packedOut  receives packed jalali dates at the same indexes as epochDays
+     * @param fromIndex  index of the first element to convert, inclusive
+     * @param toIndex    index of the last element to convert, exclusive
+     * @throws IndexOutOfBoundsException if the range is not inside both arrays
+     */
+    public void gregorianToJalali(long[] epochDays, int[] packedOut, int fromIndex, int toIndex)
+    {
+        checkRange(epochDays.length, packedOut.length, fromIndex, toIndex);
+
+        if (mappedTable != null || !astronomical)
+        {
+            for (int i = fromIndex; i < toIndex; i++)
+                packedOut[i] = packedOfEpochDay(epochDays[i]);
+            return;
+        }
+
+        boolean reuseYear = true;
+        for (int blockStart = fromIndex; blockStart < toIndex; )
+        {
+            int blockEnd = (toIndex - blockStart > BULK_BLOCK_SIZE) ? blockStart + BULK_BLOCK_SIZE : toIndex;
+
+            int yearChanges = reuseYear ? convertReusingYear(epochDays, packedOut, blockStart, blockEnd)
+                    : convertEachDay(epochDays, packedOut, blockStart, blockEnd);
+
+            // for random input keeping the year only costs a mispredicted branch, so it's used while year rarely changes
+            reuseYear = yearChanges < (blockEnd - blockStart) / 4;
+            blockStart = blockEnd;
+        }
+    }
+
+    private static final int BULK_BLOCK_SIZE = 256;
+
+    private static int convertReusingYear(long[] epochDays, int[] packedOut, int fromIndex, int toIndex)
+    {
+        int yearChanges = 0;
+        int year = 0;
+        long yearStart = 0;
+        long nextYearStart = 0;
+
+        for (int i = fromIndex; i < toIndex; i++)
+        {
+            long epochDay = epochDays[i];
+            if (epochDay < yearStart | epochDay >= nextYearStart)
+            {
+                yearChanges++;
+                year = jalaliYearOfEpochDay(epochDay);
+                yearStart = nowruzEpochDay(year);
+                nextYearStart = nowruzEpochDay(year + 1);
+            }
+
+            int dayOfYear = (int) (epochDay - yearStart);
+            int month = monthOfDayOfYear(dayOfYear);
+            packedOut[i] = JalaliDate.pack(year, month, dayOfYear - daysBeforeMonth(month) + 1);
+        }
+        return yearChanges;
+    }
+
+    private static int convertEachDay(long[] epochDays, int[] packedOut, int fromIndex, int toIndex)
     {
-        return DayOfWeekPersian.getEnum(jalaliToGregorian(jalaliDate).getDayOfWeek().getValue());
+        int yearChanges = 0;
+        int previousYear = 0;
+
+        for (int i = fromIndex; i < toIndex; i++)
+        {
+            long epochDay = epochDays[i];
+            int year = jalaliYearOfEpochDay(epochDay);
+            yearChanges += (year != previousYear) ? 1 : 0;
+            previousYear = year;
+
+            int dayOfYear = (int) (epochDay - nowruzEpochDay(year));
+            int month = monthOfDayOfYear(dayOfYear);
+            packedOut[i] = JalaliDate.pack(year, month, dayOfYear - daysBeforeMonth(month) + 1);
+        }
+        return yearChanges;
+    }
+
+    /**
+     * converts a range of packed jalali dates to epoch days, it's the bulk version of
+     * {@link #jalaliPackedToEpochDay(int)} and keeps beginning of the current jalali year between elements.
+     *
+     * @param packedDates   jalali dates packed by {@link JalaliDate#pack(int, int, int)}
+     * @param epochDaysOut  receives days since 1970-01-01 at the same indexes as packedDates
+     * @param fromIndex     index of the first element to convert, inclusive
+     * @param toIndex       index of the last element to convert, exclusive
+     * @throws IndexOutOfBoundsException if the range is not inside both arrays
+     */
+    public void jalaliToGregorian(int[] packedDates, long[] epochDaysOut, int fromIndex, int toIndex)
+    {
+        checkRange(packedDates.length, epochDaysOut.length, fromIndex, toIndex);
+
+        if (mappedTable != null || !astronomical)
+        {
+            for (int i = fromIndex; i < toIndex; i++)
+                epochDaysOut[i] = epochDayOfJalali(JalaliDate.packedYear(packedDates[i]), JalaliDate.packedMonth(packedDates[i]), JalaliDate.packedDay(packedDates[i]));
+            return;
+        }
+
+        int year = 0;
+        long yearStart = 0;
+        boolean yearStartKnown = false;
+
+        for (int i = fromIndex; i < toIndex; i++)
+        {
+            int packed = packedDates[i];
+            if (!yearStartKnown || JalaliDate.packedYear(packed) != year)
+            {
+                year = JalaliDate.packedYear(packed);
+                yearStart = nowruzEpochDay(year);
+                yearStartKnown = true;
+            }
+
+            epochDaysOut[i] = yearStart + daysBeforeMonth(JalaliDate.packedMonth(packed)) + JalaliDate.packedDay(packed) - 1;
+        }
+    }
+
+    /**
+     * default number of dates that {@link #parallelGregorianToJalali(long[], int[], int, int)} converts in one thread
+     * before splitting the range.
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    /**
+     * converts a range of epoch days to packed jalali dates with all threads of the common
+     * {@link ForkJoinPool}, ranges that are not longer than {@link #DEFAULT_SEQUENTIAL_THRESHOLD} are converted in
+     * the calling thread.
+     *
+     * @param epochDays  days since 1970-01-01, the same values that {@link LocalDate#toEpochDay()} returns
+     * @param packedOut  receives packed jalali dates at the same indexes as epochDays
+     * @param fromIndex  index of the first element to convert, inclusive
+     * @param toIndex    index of the last element to convert, exclusive
+     * @throws IndexOutOfBoundsException if the range is not inside both arrays
+     * @see #gregorianToJalali(long[], int[], int, int)
+     */
+    public void parallelGregorianToJalali(long[] epochDays, int[] packedOut, int fromIndex, int toIndex)
+    {
+        parallelGregorianToJalali(epochDays, packedOut, fromIndex, toIndex, DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * converts a range of epoch days to packed jalali dates with all threads of the common {@link ForkJoinPool}.
+     * <p>
+     * The range is split in halves until each part has no more than sequentialThreshold dates, then each part is
+     * converted by {@link #gregorianToJalali(long[], int[], int, int)}. A small threshold gives better balance
+     * between threads and a large one has less overhead, tens of thousands of dates is a good choice.
+     *
+     * @param epochDays           days since 1970-01-01, the same values that {@link LocalDate#toEpochDay()} returns
+     * @param packedOut           receives packed jalali dates at the same indexes as epochDays
+     * @param fromIndex           index of the first element to convert, inclusive
+     * @param toIndex             index of the last element to convert, exclusive
+     * @param sequentialThreshold positive number of dates that are converted in one thread without splitting
+     * @throws IndexOutOfBoundsException if the range is not inside both arrays
+     * @throws IllegalArgumentException  if sequentialThreshold is not positive
+     */
+    public void parallelGregorianToJalali(long[] epochDays, int[] packedOut, int fromIndex, int toIndex, int sequentialThreshold)
+    {
+        checkRange(epochDays.length, packedOut.length, fromIndex, toIndex);
+        validateThreshold(sequentialThreshold);
+
+        if (toIndex - fromIndex <= sequentialThreshold)
+            gregorianToJalali(epochDays, packedOut, fromIndex, toIndex);
+        else
+            ForkJoinPool.commonPool().invoke(new BulkConversionTask.OfArray(this, epochDays, packedOut, fromIndex, toIndex, sequentialThreshold));
+    }
+
+    /**
+     * converts remaining epoch days of a buffer to packed jalali dates with all threads of the common
+     * {@link ForkJoinPool}, see {@link #parallelGregorianToJalali(long[], int[], int, int, int)}.
+     * <p>
+     * Dates between position and limit of epochDays are converted and written to packedOut starting from its
+     * position, positions of buffers are not changed. Buffers can be heap or direct ones, for example a mapped file.
+     *
+     * @param epochDays           days since 1970-01-01, the same values that {@link LocalDate#toEpochDay()} returns
+     * @param packedOut           receives packed jalali dates, it must have enough remaining space
+     * @param sequentialThreshold positive number of dates that are converted in one thread without splitting
+     * @throws IndexOutOfBoundsException if packedOut has less remaining space than remaining dates of epochDays
+     * @throws IllegalArgumentException  if sequentialThreshold is not positive
+     */
+    public void parallelGregorianToJalali(IntBuffer epochDays, IntBuffer packedOut, int sequentialThreshold)
+    {
+        checkRange(epochDays.remaining(), packedOut.remaining(), 0, epochDays.remaining());
+        validateThreshold(sequentialThreshold);
+
+        BulkConversionTask task = new BulkConversionTask.OfBuffer(this, epochDays, packedOut, packedOut.position() - epochDays.position(),
+                epochDays.position(), epochDays.limit(), sequentialThreshold);
+        if (epochDays.remaining() <= sequentialThreshold)
+            task.compute();
+        else
+            ForkJoinPool.commonPool().invoke(task);
+    }
+
+    private static void validateThreshold(int sequentialThreshold)
+    {
+        if (sequentialThreshold <= 0)
+            throw new IllegalArgumentException("Wrong value for sequential threshold, it must be positive");
+    }
+
+    private static void checkRange(int inputLength, int outputLength, int fromIndex, int toIndex)
+    {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > inputLength || toIndex > outputLength)
+            throw new IndexOutOfBoundsException("Wrong range [" + fromIndex + ", " + toIndex + ") for arrays of length "
+                    + inputLength + " and " + outputLength);
     }
 
     /**
@@ -171,54 +703,115 @@ public class DateConverter
     }
 
 
-    private void validateDateValues(int year, int month, int day)
+    private static void validateDateValues(int year, int month, int day)
     {
         if (year < 0 || month < 0 || day < 0)
             throw new IllegalArgumentException("Wrong value(s). date's year-month-day can not be negative");
     }
 
-    private void validateDateValues(int year, int day)
+    private static void validateDateValues(int year, int day)
     {
         if (year < 0 || day < 0)
             throw new IllegalArgumentException("Wrong value(s). date's year-month-day can not be negative");
     }
 
-    private String NormLeap[] = {"Normal year", "Leap year"};
+    /*
+        Integer engine: everything is counted in epoch days with int/long arithmetic, only years that are not
+        covered by NowruzTable fall back to the astronomical calculation below.
+     */
 
-    private double jwday(double j)
+    static long nowruzEpochDay(int year)
     {
-        return mod(Math.floor(j + 1.5), 7);
+        return (long) nowruzJd(year) - EPOCH_DAY_JD;
     }
 
-    private double mod(double a, double b)
+    static int jalaliYearOfEpochDay(long epochDay)
     {
-        return a - (b * Math.floor(a / b));
+        long jd = epochDay + EPOCH_DAY_JD;
+        if (NowruzTable.coversJd(jd))
+            return NowruzTable.yearOfJd((int) jd);
+
+        // a guess from length of the tropical year is at most one year wrong, it's fixed by cached Nowruz of years
+        int year = (int) Math.floor((jd - PERSIAN_EPOCH) / TropicalYear) + 1;
+        while (nowruzJd(year) > jd)
+            year--;
+        while (nowruzJd(year + 1) <= jd)
+            year++;
+        return year;
+    }
+
+    /*
+        julian days of Nowruz of years that are not in NowruzTable, they are calculated astronomically once per JVM
+        when a year is asked for the first time. computeIfAbsent only locks the bin of the year, so threads that ask
+        other years do not wait. the function does not use this map itself, so updates are never recursive.
+     */
+    private static final ConcurrentHashMap<Integer, Integer> NOWRUZ_CACHE = new ConcurrentHashMap<>();
+
+    private static int nowruzJd(int year)
+    {
+        if (NowruzTable.covers(year))
+            return NowruzTable.nowruzJd(year);
+        // far from the table the search gives wrong years and takes longer and longer, Nowruz of the year after
+        // MAX_YEAR is the end of its last day
+        if (year < JalaliDate.MIN_PACKED_YEAR || year > JalaliDate.MAX_YEAR + 1)
+            throw new IllegalArgumentException("Wrong value for year, it must be from " + JalaliDate.MIN_PACKED_YEAR
+                    + " to " + JalaliDate.MAX_YEAR + ": " + year);
+        return NOWRUZ_CACHE.computeIfAbsent(year, y -> astronomicalNowruzJd(y, true));
+    }
+
+    // month of a zero based day of year, first six months have 31 days and the others have 30
+    private static int monthOfDayOfYear(int dayOfYear)
+    {
+        return (dayOfYear < 186) ? (dayOfYear / 31) + 1 : ((dayOfYear - 6) / 30) + 1;
+    }
+
+    // 1970-01-01 was Panjshanbeh, which is the 4th day of week when Yekshanbeh is 0
+    static DayOfWeekPersian dayOfWeekOfEpochDay(long epochDay)
+    {
+        return DayOfWeekPersian.getEnum((int) Math.floorMod(epochDay + 4, 7L));
+    }
+
+    // days of the year that are passed before the first day of the month, month can be out of 1 to 12
+    private static int daysBeforeMonth(int month)
+    {
+        return (month <= 7) ? (month - 1) * 31 : ((month - 1) * 30) + 6;
     }
 
-    private boolean leapGregorian(double year)
+    private static long jalaliToEpochDay(int year, int month, int day)
     {
-        return ((year % 4) == 0) && (!(((year % 100) == 0) && ((year % 400) != 0)));
+        return nowruzEpochDay(year) + daysBeforeMonth(month) + day - 1;
     }
 
-    double GREGORIAN_EPOCH = 1721425.5;
+    /*
+        month and day can be out of their range, like 13 for month, and they are shifted to next year or month.
+        the days-from-civil algorithm counts years from march so february's leap day is the last day of a year.
+     */
+    private static long gregorianToEpochDay(int year, int month, int day)
+    {
+        long y = year + Math.floorDiv(month - 1, 12);
+        int m = Math.floorMod(month - 1, 12) + 1;
+
+        if (m <= 2)
+            y--;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
 
-    private double gregorianToJd(double year, double month, double day)
+        return era * 146097 + dayOfEra - 719468 + day - 1;
+    }
+
+    private static double mod(double a, double b)
     {
-        return (GREGORIAN_EPOCH - 1) +
-                (365 * (year - 1)) +
-                Math.floor((year - 1) / 4) +
-                (-Math.floor((year - 1) / 100)) +
-                Math.floor((year - 1) / 400) +
-                Math.floor((((367 * month) - 362) / 12) +
-                        ((month <= 2) ? 0 :
-                                (leapGregorian(year) ? -1 : -2)
-                        ) +
-                        day);
+        return a - (b * Math.floor(a / b));
     }
 
-    private double[] jdToGregorian(double jd)
+    private static final double GREGORIAN_EPOCH = 1721425.5;
+
+    // gregorian year of a julian day, which is all that persianaYear needs of the gregorian date
+    private static double gregorianYearOfJd(double jd)
     {
-        double wjd, depoch, quadricent, dqc, cent, dcent, quad, dquad, yindex, year, yearday, leapadj;
+        double wjd, depoch, quadricent, dqc, cent, dcent, quad, dquad, yindex, year;
 
         wjd = Math.floor(jd - 0.5) + 0.5;
         depoch = wjd - GREGORIAN_EPOCH;
@@ -234,19 +827,10 @@ public class DateConverter
         {
             year++;
         }
-        yearday = wjd - gregorianToJd(year, 1, 1);
-        leapadj = ((wjd < gregorianToJd(year, 3, 1)) ? 0
-                :
-                (leapGregorian(year) ? 1 : 2)
-        );
-        double month = Math.floor((((yearday + leapadj) * 12) + 373) / 367);
-        double day = (wjd - gregorianToJd(year, month, 1)) + 1;
-
-        double[] returnValue = {year, month, day};
-        return returnValue;
+        return year;
     }
 
-    double[][] JDE0tab1000 =
+    private static final double[][] JDE0tab1000 =
 
             {
                     {1721139.29189, 365242.13740, 0.06134, 0.00111, -0.00071},
@@ -255,14 +839,20 @@ public class DateConverter
                     {1721414.39987, 365242.88257, -0.00769, -0.00933, -0.00006}
             };
 
-    double[][] JDE0tab2000 = {
+    private static final double[][] JDE0tab2000 = {
             {2451623.80984, 365242.37404, 0.05169, -0.00411, -0.00057},
             {2451716.56767, 365241.62603, 0.00325, 0.00888, -0.00030},
             {2451810.21715, 365242.01767, -0.11575, 0.00337, 0.00078},
             {2451900.05952, 365242.74049, -0.06223, -0.00823, 0.00032}
     };
 
-    private double equinox(double year, int which)
+    private static double equinox(double year, int which)
+    {
+        return equinox(year, which, EquinoxpTerms.length / 3);
+    }
+
+    // only the first terms of the periodic series are added, they are sorted by amplitude
+    private static double equinox(double year, int which, int terms)
     {
         double deltaL, JDE0, JDE, S, T, W, Y;
         int i, j;
@@ -289,7 +879,7 @@ public class DateConverter
         deltaL = 1 + (0.0334 * dcos(W)) + (0.0007 * dcos(2 * W));
 
         S = 0;
-        for (i = j = 0; i < 24; i++)
+        for (i = j = 0; i < terms; i++)
         {
             S += EquinoxpTerms[j] * dcos(EquinoxpTerms[j + 1] + (EquinoxpTerms[j + 2] * T));
             j += 3;
@@ -301,7 +891,7 @@ public class DateConverter
         return JDE;
     }
 
-    double[] EquinoxpTerms = {
+    private static final double[] EquinoxpTerms = {
             485, 324.96, 1934.136,
             203, 337.23, 32964.467,
             199, 342.08, 20.186,
@@ -328,7 +918,7 @@ public class DateConverter
             8, 15.45, 16859.074
     };
 
-    private double tehranEquinox(double year)
+    private static double tehranEquinox(double year)
     {
         double equJED, equJD, equAPP, equTehran, dtTehran;
 
@@ -344,7 +934,54 @@ public class DateConverter
         return equTehran;
     }
 
-    private double deltat(double year)
+    /*
+        fast astronomy: equinox and nutation series without their smaller terms. sum of amplitudes of removed terms
+        bounds the error of the result, so when the fast result is farther than that bound from the beginning of a day
+        (and from 0 or 20 degrees where equation of time wraps) both ways give the same day, otherwise the full series
+        are calculated. error of equation of time that comes from the error of equinox is less than 1e-6 of it.
+     */
+    private static final int FAST_EQUINOX_TERMS = 12;
+    private static final int FAST_NUTATION_TERMS = 6;
+
+    // in days, deltaL of equinox is at least 1 - 0.0334 - 0.0007
+    private static final double FAST_EQUINOX_ERROR = removedAmplitudes(EquinoxpTerms, 3, 0, FAST_EQUINOX_TERMS) * 0.00001 / 0.9659;
+
+    private static double removedAmplitudes(double[] series, int stride, int column, int keptTerms)
+    {
+        double sum = 0;
+        for (int i = keptTerms * stride + column; i < series.length; i += stride)
+            sum += Math.abs(series[i]);
+        return sum;
+    }
+
+    /*
+        same as tehranEquinoxJd with fewer terms of series, if the day can not be decided by them the full series are
+        calculated, so the result is always the same.
+     */
+    private static double fastTehranEquinoxJd(double year)
+    {
+        double equJED = equinox(year, 0, FAST_EQUINOX_TERMS);
+        double equJD = equJED - (deltat(year) / (24 * 60 * 60));
+
+        double degrees = equationOfTimeDegrees(equJED, FAST_NUTATION_TERMS);
+        double t = (equJED - 2451545.0) / 36525.0;
+        // deltaPsi error, in degrees, and cos(epsilon) is less than one
+        double degreesError = (FAST_NUTATION_ERROR + FAST_NUTATION_ERROR_PER_T * Math.abs(t / 10.0)) / (3600.0 * 10000.0);
+
+        double wrapped = degrees - 20.0 * (Math.floor(degrees / 20.0));
+        if (wrapped < 2 * degreesError || 20.0 - wrapped < 2 * degreesError)
+            return tehranEquinoxJd(year);
+
+        double equTehran = equJD + wrapped / (24 * 60) + (52 + (30 / 60.0) + (0 / (60.0 * 60.0))) / 360;
+        double error = 2 * (FAST_EQUINOX_ERROR + degreesError / (24 * 60)) + 1e-9;
+        double day = Math.floor(equTehran);
+        if (equTehran - day < error || day + 1 - equTehran < error)
+            return tehranEquinoxJd(year);
+
+        return day;
+    }
+
+    private static double deltat(double year)
     {
         double dt, f, t;
         int i;
@@ -372,7 +1009,7 @@ public class DateConverter
         return dt;
     }
 
-    private double deltaTtab[] = {
+    private static final double[] deltaTtab = {
             121, 112, 103, 95, 88, 82, 77, 72, 68, 63, 60, 56, 53, 51, 48, 46,
             44, 42, 40, 38, 35, 33, 31, 29, 26, 24, 22, 20, 18, 16, 14, 12,
             11, 10, 9, 8, 7, 7, 7, 7, 7, 7, 8, 8, 9, 9, 9, 9, 9, 10, 10, 10,
@@ -390,13 +1027,22 @@ public class DateConverter
     };
 
 
-    private double J2000 = 2451545.0;
-    private double JulianCentury = 36525.0;
-    private double JulianMillennium = (JulianCentury * 10);
+    private static final double J2000 = 2451545.0;
+    private static final double JulianCentury = 36525.0;
+    private static final double JulianMillennium = (JulianCentury * 10);
+
+    private static double equationOfTime(double jd)
+    {
+        double E = equationOfTimeDegrees(jd, NUTATION_TERMS);
+        E = E - 20.0 * (Math.floor(E / 20.0));
+        E = E / (24 * 60);
+        return E;
+    }
 
-    private double equationOfTime(double jd)
+    // equation of time before it is reduced to 0 to 20 and changed to days
+    private static double equationOfTimeDegrees(double jd, int nutationTerms)
     {
-        double alpha, deltaPsi, E, epsilon, L0, tau;
+        double alpha, E, L0, tau;
 
         tau = (jd - J2000) / JulianMillennium;
         L0 = 280.4664567 + (360007.6982779 * tau) +
@@ -405,54 +1051,46 @@ public class DateConverter
                 (-((tau * tau * tau * tau) / 15300)) +
                 (-((tau * tau * tau * tau * tau) / 2000000));
         L0 = fixangle(L0);
-        alpha = sunpos(jd)[10];
-        deltaPsi = nutation(jd)[0];
-        epsilon = obliqeq(jd) + nutation(jd)[1];
-        E = L0 + (-0.0057183) + (-alpha) + (deltaPsi * dcos(epsilon));
-        E = E - 20.0 * (Math.floor(E / 20.0));
-        E = E / (24 * 60);
+        alpha = sunApparentRightAscension(jd);
+        E = L0 + (-0.0057183) + (-alpha) + equationOfEquinoxes(jd, nutationTerms);
         return E;
     }
 
 
-    private double[] nutation(double jd)
+    private static final int NUTATION_TERMS = 63;
+
+    /*
+        nutation in longitude times cosine of the true obliquity, deltaPsi * cos(epsilon0 + deltaEpsilon). both
+        nutation values are only needed for this product, so it's returned instead of an array of them.
+        only the first terms of the series are added, they are sorted by amplitude.
+     */
+    private static double equationOfEquinoxes(double jd, int terms)
     {
         double deltaPsi, deltaEpsilon;
-        int i, j;
+        int i, k;
         double t = (jd - 2451545.0) / 36525.0, t2, t3, to10,
-                dp = 0, de = 0, ang;
-        double ta[] = new double[5];
+                dp = 0, de = 0, ang, ta0, ta1, ta2, ta3, ta4;
 
 
         t3 = t * (t2 = t * t);
 
-        ta[0] = dtr(297.850363 + 445267.11148 * t - 0.0019142 * t2 +
-                t3 / 189474.0);
-        ta[1] = dtr(357.52772 + 35999.05034 * t - 0.0001603 * t2 -
-                t3 / 300000.0);
-        ta[2] = dtr(134.96298 + 477198.867398 * t + 0.0086972 * t2 +
-                t3 / 56250.0);
-        ta[3] = dtr(93.27191 + 483202.017538 * t - 0.0036825 * t2 +
-                t3 / 327270);
-        ta[4] = dtr(125.04452 - 1934.136261 * t + 0.0020708 * t2 +
-                t3 / 450000.0);
-
-        for (i = 0; i < 5; i++)
-        {
-            ta[i] = fixangr(ta[i]);
-        }
+        ta0 = fixangr(dtr(297.850363 + 445267.11148 * t - 0.0019142 * t2 +
+                t3 / 189474.0));
+        ta1 = fixangr(dtr(357.52772 + 35999.05034 * t - 0.0001603 * t2 -
+                t3 / 300000.0));
+        ta2 = fixangr(dtr(134.96298 + 477198.867398 * t + 0.0086972 * t2 +
+                t3 / 56250.0));
+        ta3 = fixangr(dtr(93.27191 + 483202.017538 * t - 0.0036825 * t2 +
+                t3 / 327270));
+        ta4 = fixangr(dtr(125.04452 - 1934.136261 * t + 0.0020708 * t2 +
+                t3 / 450000.0));
 
         to10 = t / 10.0;
-        for (i = 0; i < 63; i++)
+        for (i = 0; i < terms; i++)
         {
-            ang = 0;
-            for (j = 0; j < 5; j++)
-            {
-                if (nutArgMult[(i * 5) + j] != 0)
-                {
-                    ang += nutArgMult[(i * 5) + j] * ta[j];
-                }
-            }
+            k = i * 5;
+            ang = nutArgMult[k] * ta0 + nutArgMult[k + 1] * ta1 + nutArgMult[k + 2] * ta2
+                    + nutArgMult[k + 3] * ta3 + nutArgMult[k + 4] * ta4;
             dp += (nutArgCoeff[(i * 4) + 0] + nutArgCoeff[(i * 4) + 1] * to10) * Math.sin(ang);
             de += (nutArgCoeff[(i * 4) + 2] + nutArgCoeff[(i * 4) + 3] * to10) * Math.cos(ang);
         }
@@ -460,12 +1098,11 @@ public class DateConverter
         deltaPsi = dp / (3600.0 * 10000.0);
         deltaEpsilon = de / (3600.0 * 10000.0);
 
-        double[] returnValue = {deltaPsi, deltaEpsilon};
-        return returnValue;
+        return deltaPsi * dcos(obliqeq(jd) + deltaEpsilon);
     }
 
 
-    private double[] nutArgCoeff = {
+    private static final double[] nutArgCoeff = {
             -171996, -1742, 92095, 89,
             -13187, -16, 5736, -31,
             -2274, -2, 977, -5,
@@ -532,7 +1169,7 @@ public class DateConverter
     };
 
 
-    private double[] nutArgMult = {
+    private static final double[] nutArgMult = {
             0, 0, 0, 0, 1,
             -2, 0, 0, 2, 2,
             0, 0, 0, 2, 2,
@@ -598,16 +1235,20 @@ public class DateConverter
             2, -1, 0, 2, 2
     };
 
-    private double fixangr(double a)
+    // removed terms of nutation for fast astronomy in 0.0001 arcseconds, constant and (t / 10) parts of deltaPsi
+    private static final double FAST_NUTATION_ERROR = removedAmplitudes(nutArgCoeff, 4, 0, FAST_NUTATION_TERMS);
+    private static final double FAST_NUTATION_ERROR_PER_T = removedAmplitudes(nutArgCoeff, 4, 1, FAST_NUTATION_TERMS);
+
+    private static double fixangr(double a)
     {
         return a - (2 * Math.PI) * (Math.floor(a / (2 * Math.PI)));
     }
 
-    private double[] sunpos(double jd)
+    // apparent right ascension of the sun, the only position of sunpos that equation of time uses
+    private static double sunApparentRightAscension(double jd)
     {
-        double T, T2, L0, M, e, C, sunLong, sunAnomaly, sunR,
-                Omega, Lambda, epsilon, epsilon0, Alpha, Delta,
-                AlphaApp, DeltaApp;
+        double T, T2, L0, M, C, sunLong,
+                Omega, Lambda, epsilon, epsilon0, AlphaApp;
 
         T = (jd - J2000) / JulianCentury;
         T2 = T * T;
@@ -615,49 +1256,41 @@ public class DateConverter
         L0 = fixangle(L0);
         M = 357.52911 + (35999.05029 * T) + (-0.0001537 * T2);
         M = fixangle(M);
-        e = 0.016708634 + (-0.000042037 * T) + (-0.0000001267 * T2);
         C = ((1.914602 + (-0.004817 * T) + (-0.000014 * T2)) * dsin(M)) +
                 ((0.019993 - (0.000101 * T)) * dsin(2 * M)) +
                 (0.000289 * dsin(3 * M));
         sunLong = L0 + C;
-        sunAnomaly = M + C;
-        sunR = (1.000001018 * (1 - (e * e))) / (1 + (e * dcos(sunAnomaly)));
         Omega = 125.04 - (1934.136 * T);
         Lambda = sunLong + (-0.00569) + (-0.00478 * dsin(Omega));
         epsilon0 = obliqeq(jd);
         epsilon = epsilon0 + (0.00256 * dcos(Omega));
-        Alpha = rtd(Math.atan2(dcos(epsilon0) * dsin(sunLong), dcos(sunLong)));
-        Alpha = fixangle(Alpha);
-        Delta = rtd(Math.asin(dsin(epsilon0) * dsin(sunLong)));
         AlphaApp = rtd(Math.atan2(dcos(epsilon) * dsin(Lambda), dcos(Lambda)));
         AlphaApp = fixangle(AlphaApp);
-        DeltaApp = rtd(Math.asin(dsin(epsilon) * dsin(Lambda)));
 
-        double[] returnValue = {L0, M, e, C, sunLong, sunAnomaly, sunR, Lambda, Alpha, Delta, AlphaApp, DeltaApp};
-        return returnValue;
+        return AlphaApp;
     }
 
-    private double dcos(double d)
+    private static double dcos(double d)
     {
         return Math.cos(dtr(d));
     }
 
-    private double dtr(double d)
+    private static double dtr(double d)
     {
         return (d * Math.PI) / 180.0;
     }
 
-    private double rtd(double r)
+    private static double rtd(double r)
     {
         return (r * 180.0) / Math.PI;
     }
 
-    private double dsin(double d)
+    private static double dsin(double d)
     {
         return Math.sin(dtr(d));
     }
 
-    private double obliqeq(double jd)
+    private static double obliqeq(double jd)
     {
         double eps, u, v;
         int i;
@@ -677,7 +1310,7 @@ public class DateConverter
         return eps;
     }
 
-    private double[] oterms = {
+    private static final double[] oterms = {
             -4680.93,
             -1.55,
             1999.25,
@@ -690,13 +1323,18 @@ public class DateConverter
             2.45
     };
 
-    private double fixangle(double a)
+    private static double fixangle(double a)
     {
         return a - 360.0 * (Math.floor(a / 360.0));
     }
 
 
-    private double tehranEquinoxJd(double year)
+    static double tehranEquinoxJd(double year, boolean fast)
+    {
+        return fast ? fastTehranEquinoxJd(year) : tehranEquinoxJd(year);
+    }
+
+    private static double tehranEquinoxJd(double year)
     {
         double ep, epg;
 
@@ -706,63 +1344,37 @@ public class DateConverter
         return epg;
     }
 
-    private  double PERSIAN_EPOCH = 1948320.5;
-    private  double TropicalYear = 365.24219878;
+    private static final double PERSIAN_EPOCH = 1948320.5;
+    private static final double TropicalYear = 365.24219878;
 
-    private double[] persianaYear(double jd)
+    // julian day of the last Nowruz that is not after jd, its year is round((lasteq - PERSIAN_EPOCH) / TropicalYear) + 1
+    private static double persianaYear(double jd, boolean fast)
     {
-        double guess = jdToGregorian(jd)[0] - 2,
-                lasteq, nexteq, adr;
+        double guess = gregorianYearOfJd(jd) - 2,
+                lasteq, nexteq;
 
-        lasteq = tehranEquinoxJd(guess);
+        lasteq = tehranEquinoxJd(guess, fast);
         while (lasteq > jd)
         {
             guess--;
-            lasteq = tehranEquinoxJd(guess);
+            lasteq = tehranEquinoxJd(guess, fast);
         }
         nexteq = lasteq - 1;
         while (!((lasteq <= jd) && (jd < nexteq)))
         {
             lasteq = nexteq;
             guess++;
-            nexteq = tehranEquinoxJd(guess);
+            nexteq = tehranEquinoxJd(guess, fast);
         }
-        adr = Math.round((lasteq - PERSIAN_EPOCH) / TropicalYear) + 1;
-
-        double[] returnValue = {adr, lasteq};
-        return returnValue;
+        return lasteq;
     }
 
 
-    private double[] jdToPersiana(double jd)
+    private static double persianaToJd(double year, double month, double day)
     {
-        double year, month, day, yday;
-        double[] adr;
-        jd = Math.floor(jd) + 0.5;
-        adr = persianaYear(jd);
-        year = adr[0];
-
-        yday = (Math.floor(jd) - persianaToJd(year, 1, 1)) + 1;
-        month = (yday <= 186) ? Math.ceil(yday / 31) : Math.ceil((yday - 6) / 30);
-        day = (Math.floor(jd) - persianaToJd(year, month, 1)) + 1;
-
-        double[] return_value = {year, month, day};
-        return return_value;
-    }
-
-    private double persianaToJd(double year, double month, double day)
-    {
-        double equinox, guess, jd;
-        double[] adr = {year - 1, 0};
-
-        guess = (PERSIAN_EPOCH - 1) + (TropicalYear * ((year - 1) - 1));
+        double equinox, jd;
 
-        while (adr[0] < year)
-        {
-            adr = persianaYear(guess);
-            guess = adr[1] + (TropicalYear + 2);
-        }
-        equinox = adr[1];
+        equinox = nowruzJd((int) year);
 
         jd = equinox +
                 ((month <= 7) ?
@@ -773,120 +1385,47 @@ public class DateConverter
         return jd;
     }
 
-    /**
-     * checks whether provided year is leap year or not.
-     * <p>
-     * This method should not be used by other classes or methods outside of this package.
-     *
-     * @param year positive jalali year
-     * @return if provided year was leap it returns true
+    /*
+        julian day of Nowruz of a year by searching the vernal equinoxes. it never reads NowruzTable, so it's used by
+        NowruzTableGenerator to build the table and by NOWRUZ_CACHE for years that are not in it.
      */
-    protected boolean leapPersiana(double year)
-    {
-        return (persianaToJd(year + 1, 1, 1) -
-                persianaToJd(year, 1, 1)) > 365;
-    }
-
-    private boolean leapPersian(double year)
+    static int astronomicalNowruzJd(int year)
     {
-        return ((((((year - ((year > 0) ? 474 : 473)) % 2820) + 474) + 38) * 682) % 2816) < 682;
-    }
-
-    private double persianToJd(double year, double month, double day)
-    {
-        double epbase, epyear;
-
-        epbase = year - ((year >= 0) ? 474 : 473);
-        epyear = 474 + mod(epbase, 2820);
-
-        return day +
-                ((month <= 7) ?
-                        ((month - 1) * 31) :
-                        (((month - 1) * 30) + 6)
-                ) +
-                Math.floor(((epyear * 682) - 110) / 2816) +
-                (epyear - 1) * 365 +
-                Math.floor(epbase / 2820) * 1029983 +
-                (PERSIAN_EPOCH - 1);
+        return astronomicalNowruzJd(year, false);
     }
 
-
-    private double[] jdToPersian(double jd)
+    // fast astronomy gives the same days and is used for years that are calculated at runtime
+    static int astronomicalNowruzJd(int year, boolean fast)
     {
-        double year, month, day, depoch, cycle, cyear, ycycle,
-                aux1, aux2, yday;
+        double adr = year - 1, lasteq = 0;
 
+        double guess = (PERSIAN_EPOCH - 1) + (TropicalYear * ((year - 1) - 1));
 
-        jd = Math.floor(jd) + 0.5;
-
-        depoch = jd - persianToJd(475, 1, 1);
-        cycle = Math.floor(depoch / 1029983);
-        cyear = mod(depoch, 1029983);
-        if (cyear == 1029982)
-        {
-            ycycle = 2820;
-        } else
+        while (adr < year)
         {
-            aux1 = Math.floor(cyear / 366);
-            aux2 = mod(cyear, 366);
-            ycycle = Math.floor(((2134 * aux1) + (2816 * aux2) + 2815) / 1028522) +
-                    aux1 + 1;
+            lasteq = persianaYear(guess, fast);
+            adr = Math.round((lasteq - PERSIAN_EPOCH) / TropicalYear) + 1;
+            guess = lasteq + (TropicalYear + 2);
         }
-        year = ycycle + (2820 * cycle) + 474;
-        if (year <= 0)
-        {
-            year--;
-        }
-        yday = (jd - persianToJd(year, 1, 1)) + 1;
-        month = (yday <= 186) ? Math.ceil(yday / 31) : Math.ceil((yday - 6) / 30);
-        day = (jd - persianToJd(year, month, 1)) + 1;
-        double[] returnValue = {year, month, day};
-        return returnValue;
-    }
-
-    double perscal[];
-
-    private void updateFromGregorian(int gregorianYear, int gregorianMonth, int gregorianDay)
-    {
-        double j, year, mon, mday, weekday;
-
-        double[] julcal;
-
-        year = gregorianYearValue = gregorianYear;
-        mon = gregorianMonthSelectedIndex = gregorianMonth;
-        mday = gregorianDayValue + gregorianDay;
-
-        j = gregorianToJd(year, mon + 1, mday);
-
-        juliandayDayValue = j;
-
-        weekday = jwday(j);
-        persianaWeekDay = (int) weekday;
-
-        perscal = jdToPersian(j);
-
-        perscal = jdToPersiana(j);
-        persianaYearValue = perscal[0];
-        persianaMonthSelectedIndex = perscal[1] - 1;
-        persianaDayValue = perscal[2];
+        return (int) lasteq;
     }
 
-    private void calcJulian()
+    /**
+     * checks whether provided year is leap year or not.
+     * <p>
+     * This method should not be used by other classes or methods outside of this package.
+     *
+     * @param year positive jalali year
+     * @return if provided year was leap it returns true
+     */
+    protected boolean leapPersiana(double year)
     {
-        double j;
-        double[] date;
-
-        j = juliandayDayValue;
-        date = jdToGregorian(j);
-        gregorianYearValue = date[0];
-        gregorianMonthSelectedIndex = date[1] - 1;
-        gregorianDayValue = date[2];
-
+        return isAstronomicalLeapYear(year);
     }
 
-    private void setJulian(double j)
+    private static boolean isAstronomicalLeapYear(double year)
     {
-        juliandayDayValue = j;
-        calcJulian();
+        return (persianaToJd(year + 1, 1, 1) -
+                persianaToJd(year, 1, 1)) > 365;
     }
 }
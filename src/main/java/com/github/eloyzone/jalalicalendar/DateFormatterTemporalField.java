@@ -1,11 +1,19 @@
 package com.github.eloyzone.jalalicalendar;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Created By Eloy on 5/7/18.
  *
  * This class is a place holder for each date pattern element, for example each yyyy is considered az a one temporal
  * field. each object of this class has two important value 'type' and 'count'. type shows type of each field and count
  * shows the number of it. for example 'mm' will be MONTH_FIELD and its count will be two.
+ * <p>
+ * Fields are created once, when a {@link JalaliDateFormatter} compiles its pattern, and each field prints its own part
+ * of a date. Fields are immutable so the same field is used by all threads that use the formatter.
  *
  * This class is protected by this package and just will be used by JalaliDateFormatter class.
  *
@@ -13,7 +21,7 @@ package com.github.eloyzone.jalalicalendar;
  * @see JalaliDateFormatter
  *
  */
-class DateFormatterTemporalField
+final class DateFormatterTemporalField
 {
     protected static final int YEAR_FIElD = 1;
     protected static final int MONTH_FIElD = 2;
@@ -24,13 +32,29 @@ class DateFormatterTemporalField
     protected static final int DASH_FIElD = 7;
     protected static final int SLASH_FIElD = 8;
 
-    private int count = 0;
-    private int type;
+    private final int count;
+    private final int type;
+    // true if next field is a number too, then a year can not have more than 4 digits so parse can split the numbers
+    private final boolean adjacentNumber;
 
     protected DateFormatterTemporalField(int count, int type)
+    {
+        this(count, type, false);
+    }
+
+    private DateFormatterTemporalField(int count, int type, boolean adjacentNumber)
     {
         this.count = count;
         this.type = type;
+        this.adjacentNumber = adjacentNumber;
+    }
+
+    /**
+     * @return the same field that is followed by a number field, like year of yyyymmdd
+     */
+    DateFormatterTemporalField withAdjacentNumber()
+    {
+        return new DateFormatterTemporalField(count, type, true);
     }
 
     protected int getCount()
@@ -42,4 +66,364 @@ class DateFormatterTemporalField
     {
         return type;
     }
+
+    /**
+     * @param jalaliDate date that is formatted
+     * @param persian    true if month names are written in persian
+     * @return number of chars of this field of jalaliDate
+     * @exception IllegalArgumentException if a single letter month or day field has a value of one digit, or a year
+     * that is followed by a number does not fit in 4 digits.
+     */
+    int length(JalaliDate jalaliDate, boolean persian)
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+            case MONTH_FIElD:
+            case DAY_FIElD:
+                return numberLength(value(jalaliDate));
+            case MONTH_STRING_FIElD:
+                return monthName(jalaliDate, persian).length();
+            default:
+                return count;
+        }
+    }
+
+    /**
+     * @return number of UTF-8 bytes of this field of jalaliDate
+     * @exception IllegalArgumentException if a single letter month or day field has a value of one digit, or a year
+     * that is followed by a number does not fit in 4 digits.
+     */
+    int utf8Length(JalaliDate jalaliDate, boolean persian)
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+            case MONTH_FIElD:
+            case DAY_FIElD:
+                int value = value(jalaliDate);
+                // persian digits are two bytes, the minus sign is one
+                return persian ? numberLength(value) * 2 - (value < 0 ? 1 : 0) : numberLength(value);
+            case MONTH_STRING_FIElD:
+                return monthNameUtf8(jalaliDate, persian).length;
+            default:
+                return count;
+        }
+    }
+
+    /**
+     * appends value of this field of jalaliDate to result.
+     *
+     * @param jalaliDate date that is formatted
+     * @param result     formatted date so far
+     * @param persian    true if digits and month names are written in persian
+     * @throws IOException if result throws it
+     * @exception IllegalArgumentException if a single letter month or day field has a value of one digit, or a year
+     * that is followed by a number does not fit in 4 digits.
+     */
+    void print(JalaliDate jalaliDate, Appendable result, boolean persian) throws IOException
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+            case MONTH_FIElD:
+            case DAY_FIElD:
+                int value = value(jalaliDate);
+                int length = numberLength(value);
+                if (value < 0)
+                {
+                    result.append('-');
+                    value = -value;
+                    length--;
+                }
+                for (int divisor = POWERS_OF_TEN[length - 1]; divisor > 0; divisor /= 10)
+                    result.append(digit((value / divisor) % 10, persian));
+                break;
+            case MONTH_STRING_FIElD:
+                result.append(monthName(jalaliDate, persian));
+                break;
+            default:
+                for (int i = 0; i < count; i++)
+                    result.append(separator());
+        }
+    }
+
+    /**
+     * writes value of this field of jalaliDate to result, result must have room for {@link #length(JalaliDate, boolean)}
+     * chars after offset.
+     *
+     * @return offset after the last written char
+     */
+    int print(JalaliDate jalaliDate, char[] result, int offset, boolean persian)
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+            case MONTH_FIElD:
+            case DAY_FIElD:
+                int value = value(jalaliDate);
+                int end = offset + numberLength(value);
+                int first = offset;
+                if (value < 0)
+                    result[first++] = '-';
+                // digits are written from the last one
+                long absolute = Math.abs((long) value);
+                for (int i = end - 1; i >= first; i--, absolute /= 10)
+                    result[i] = digit((int) (absolute % 10), persian);
+                return end;
+            case MONTH_STRING_FIElD:
+                String monthName = monthName(jalaliDate, persian);
+                monthName.getChars(0, monthName.length(), result, offset);
+                return offset + monthName.length();
+            default:
+                Arrays.fill(result, offset, offset + count, separator());
+                return offset + count;
+        }
+    }
+
+    /**
+     * writes UTF-8 bytes of this field of jalaliDate to result, result must have room for
+     * {@link #utf8Length(JalaliDate, boolean)} bytes.
+     */
+    void print(JalaliDate jalaliDate, ByteBuffer result, boolean persian)
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+            case MONTH_FIElD:
+            case DAY_FIElD:
+                int value = value(jalaliDate);
+                int length = numberLength(value);
+                if (value < 0)
+                {
+                    result.put((byte) '-');
+                    value = -value;
+                    length--;
+                }
+                for (int divisor = POWERS_OF_TEN[length - 1]; divisor > 0; divisor /= 10)
+                {
+                    int digit = (value / divisor) % 10;
+                    if (persian)
+                        result.put((byte) 0xD9).put((byte) (0xA0 + digit));
+                    else
+                        result.put((byte) ('0' + digit));
+                }
+                break;
+            case MONTH_STRING_FIElD:
+                result.put(monthNameUtf8(jalaliDate, persian));
+                break;
+            default:
+                for (int i = 0; i < count; i++)
+                    result.put((byte) separator());
+        }
+    }
+
+    /**
+     * @return true if this field is a year, month or day in digits
+     */
+    boolean isNumber()
+    {
+        return type == YEAR_FIElD || type == MONTH_FIElD || type == DAY_FIElD;
+    }
+
+    /**
+     * @return true if this field is a year
+     */
+    boolean isYear()
+    {
+        return type == YEAR_FIElD;
+    }
+
+    /**
+     * @return true if this field is a month in digits or in words
+     */
+    boolean isMonth()
+    {
+        return type == MONTH_FIElD || type == MONTH_STRING_FIElD;
+    }
+
+    /**
+     * reads this field from text, digits can be english, persian or arabic-indic and month names can be english or
+     * persian.
+     * <p>
+     * A year has 1 to {@value #MAX_YEAR_DIGITS} digits, a month or day field of two letters has two digits and of one
+     * letter has one or two digits. When next field is a number too there is nothing between them, so then a year
+     * has 4 digits and a month or day has 2 digits.
+     *
+     * @param text           text that is parsed
+     * @param position       index of text that this field starts from
+     * @param adjacentNumber true if next field is a number field
+     * @return value of the field in the high 32 bits and index after the field in the low 32 bits, or ~index of the
+     * first wrong char if text does not match the field, the same way parsers of java.time report errors
+     */
+    long parse(CharSequence text, int position, boolean adjacentNumber)
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+            case MONTH_FIElD:
+            case DAY_FIElD:
+                int maxDigits = type == YEAR_FIElD ? (adjacentNumber ? 4 : MAX_YEAR_DIGITS) : 2;
+                int minDigits = type == YEAR_FIElD ? (adjacentNumber ? 4 : 1) : (adjacentNumber || count == 2 ? 2 : 1);
+                int value = 0;
+                int index = position;
+                for (; index < text.length() && index - position < maxDigits; index++)
+                {
+                    int digit = digitValue(text.charAt(index));
+                    if (digit < 0)
+                        break;
+                    value = value * 10 + digit;
+                }
+                if (index - position < minDigits)
+                    return ~index;
+                return ((long) value << 32) | index;
+            case MONTH_STRING_FIElD:
+                return parseMonthName(text, position);
+            default:
+                char separator = separator();
+                for (int i = position; i < position + count; i++)
+                    if (i >= text.length() || text.charAt(i) != separator)
+                        return ~i;
+                return position + count;
+        }
+    }
+
+    // the longest month name that text has at position, english names are matched ignoring case
+    private static long parseMonthName(CharSequence text, int position)
+    {
+        int month = 0;
+        int length = 0;
+        for (int i = 0; i < PARSED_MONTH_NAMES.length; i++)
+        {
+            String name = PARSED_MONTH_NAMES[i];
+            if (name.length() > length && matches(text, position, name))
+            {
+                month = (i % 12) + 1;
+                length = name.length();
+            }
+        }
+        if (month == 0)
+            return ~position;
+        return ((long) month << 32) | (position + length);
+    }
+
+    private static boolean matches(CharSequence text, int position, String name)
+    {
+        if (text.length() - position < name.length())
+            return false;
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = text.charAt(position + i);
+            char n = name.charAt(i);
+            if (c != n && Character.toLowerCase(c) != Character.toLowerCase(n))
+                return false;
+        }
+        return true;
+    }
+
+    // english, persian and arabic-indic digits
+    private static int digitValue(char c)
+    {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= '\u0660' && c <= '\u0669')
+            return c - '\u0660';
+        if (c >= '\u06F0' && c <= '\u06F9')
+            return c - '\u06F0';
+        return -1;
+    }
+
+    /*
+        value of a number field. a field of two letters pads the value with zero, a field of one letter only accepts
+        values of two digits, so a month or day field of one letter never prints a value of one digit. a year that is
+        followed by another number only accepts values of up to 4 digits, as parse reads exactly 4 digits of it.
+     */
+    private int value(JalaliDate jalaliDate)
+    {
+        switch (type)
+        {
+            case YEAR_FIElD:
+                if (adjacentNumber && (jalaliDate.getYear() < 0 || jalaliDate.getYear() > 9999))
+                    throw new IllegalArgumentException("format of year can not match with value");
+                return jalaliDate.getYear();
+            case MONTH_FIElD:
+                if (count != 2 && jalaliDate.getMonthPersian().getValue() < 10)
+                    throw new IllegalArgumentException("format of month can not match with value");
+                return jalaliDate.getMonthPersian().getValue();
+            default:
+                if (count != 2 && jalaliDate.getDay() < 10)
+                    throw new IllegalArgumentException("format of day can not match with value");
+                return jalaliDate.getDay();
+        }
+    }
+
+    /*
+        number of chars of a number, month and day fields always have two digits. a year that is not negative has at
+        least 4 digits like ISO-8601 and JalaliDate.toString, leading digits are zeros.
+     */
+    private int numberLength(int value)
+    {
+        if (type != YEAR_FIElD)
+            return 2;
+
+        int length = value < 0 ? 2 : 1;
+        long absolute = Math.abs((long) value);
+        while (length < 11 && absolute >= 10)
+        {
+            absolute /= 10;
+            length++;
+        }
+        return value >= 0 ? Math.max(length, 4) : length;
+    }
+
+    private char separator()
+    {
+        return type == SPACE_FIElD ? ' ' : type == DASH_FIElD ? '-' : '/';
+    }
+
+    private static String monthName(JalaliDate jalaliDate, boolean persian)
+    {
+        return persian ? jalaliDate.getMonthPersian().getStringInPersian() : jalaliDate.getMonthPersian().getStringInEnglish();
+    }
+
+    private static byte[] monthNameUtf8(JalaliDate jalaliDate, boolean persian)
+    {
+        return (persian ? MONTH_NAMES_FA_UTF8 : MONTH_NAMES_EN_UTF8)[jalaliDate.getMonthPersian().ordinal()];
+    }
+
+    // persian digits are arabic-indic digits, from \u0660 to \u0669
+    private static char digit(int value, boolean persian)
+    {
+        return (char) ((persian ? '\u0660' : '0') + value);
+    }
+
+    // more digits than this are not read as a year, it's the number of digits of JalaliDate.MAX_YEAR
+    static final int MAX_YEAR_DIGITS = 5;
+
+    // english names, then persian names, then other spellings of english names, index modulo 12 is the month
+    private static final String[] PARSED_MONTH_NAMES = parsedMonthNames();
+
+    private static String[] parsedMonthNames()
+    {
+        String[] names = Arrays.copyOf(MonthPersian.PERSIAN_MONTHS_EN, 36);
+        System.arraycopy(MonthPersian.PERSIAN_MONTHS_FA, 0, names, 12, 12);
+        System.arraycopy(MonthPersian.PERSIAN_MONTHS_EN, 0, names, 24, 12);
+        // "Bahmand" is how it's printed
+        names[24 + 10] = "Bahman";
+        return names;
+    }
+
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000,
+            100_000_000, 1_000_000_000};
+
+    private static final byte[][] MONTH_NAMES_EN_UTF8 = utf8(MonthPersian.PERSIAN_MONTHS_EN);
+    private static final byte[][] MONTH_NAMES_FA_UTF8 = utf8(MonthPersian.PERSIAN_MONTHS_FA);
+
+    private static byte[][] utf8(String[] strings)
+    {
+        byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++)
+            bytes[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        return bytes;
+    }
 }
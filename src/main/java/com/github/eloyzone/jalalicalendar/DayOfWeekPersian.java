@@ -48,6 +48,11 @@ public enum DayOfWeekPersian
      */
     Shanbeh;
 
+    /**
+     * Private cache of all the constants.
+     */
+    private static final DayOfWeekPersian[] ENUMS = DayOfWeekPersian.values();
+
     final static String[] PERSIAN_WEEKDAYS_EN = {"Yekshanbeh", "Doshanbeh", "Seshhanbeh", "Chaharshanbeh", "Panjshanbeh", "Jomeh", "Shanbeh"};
     final static String[] PERSIAN_WEEKDAYS_FA = {"یکشنبه", "دوشنبه", "سه شنبه", "چهارشنبه", "پنج شنبه", "جمعه", "شنبه"};
 
@@ -70,12 +75,9 @@ public enum DayOfWeekPersian
 
     public static DayOfWeekPersian getEnum(int value)
     {
-        for (DayOfWeekPersian dayOfWeekPersian : DayOfWeekPersian.values())
-        {
-            if (dayOfWeekPersian.getValue() == value)
-                return dayOfWeekPersian;
-        }
-        return null;//For values out of enum scope
+        if (value < 0 || value >= ENUMS.length)
+            return null;//For values out of enum scope
+        return ENUMS[value];
     }
 
     public String getStringInPersian()
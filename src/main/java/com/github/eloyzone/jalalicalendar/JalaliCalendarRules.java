@@ -0,0 +1,82 @@
+package com.github.eloyzone.jalalicalendar;
+
+/**
+ * This interface decides when each jalali year begins, which is all a calendar needs as months always have 31 days
+ * in the first half of the year and 30 days in the second half, except Esfand of a common year which has 29 days.
+ * <p>
+ * There are three rules:
+ * <ul>
+ * <li>{@link #astronomical()}, the year begins on the day of vernal equinox in Tehran. It's the official calendar
+ * and the default of {@link DateConverter}.</li>
+ * <li>{@link #cycle2820()}, the arithmetic 2820-year cycle of Birashk.</li>
+ * <li>{@link #cycle33()}, the arithmetic 33-year cycle, eight leap years in every 33 years.</li>
+ * </ul>
+ * Arithmetic rules are closed formulas without any table, but they only give the same dates as astronomical rule for
+ * years between {@link #getFirstVerifiedYear()} and {@link #getLastVerifiedYear()}, which were found by comparing
+ * every year with the astronomical rule. For example 2820-year cycle makes 1404 a leap year instead of 1403.
+ * <p>
+ * A rule is used by a {@link DateConverter} that is created with {@link DateConverter#withRules(JalaliCalendarRules)},
+ * which only converts dates of the verified years of the rule. Rules have no state and can be used by many threads at
+ * the same time.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see DateConverter#withRules(JalaliCalendarRules)
+ */
+public interface JalaliCalendarRules
+{
+    /**
+     * @param year jalali year
+     * @return epoch day of 1 Farvardin of the year, the same count of days from 1970-01-01 that
+     * {@link java.time.LocalDate#toEpochDay()} uses
+     */
+    long nowruzEpochDay(int year);
+
+    /**
+     * @param epochDay number of days since 1970-01-01
+     * @return jalali year that contains the day
+     */
+    int yearOfEpochDay(long epochDay);
+
+    /**
+     * @param year jalali year
+     * @return true if the year has 366 days
+     */
+    default boolean isLeapYear(int year)
+    {
+        return nowruzEpochDay(year + 1) - nowruzEpochDay(year) == 366;
+    }
+
+    /**
+     * @return first year of the range whose days are all converted the same as the astronomical rule
+     */
+    int getFirstVerifiedYear();
+
+    /**
+     * @return last year of the range whose days are all converted the same as the astronomical rule
+     */
+    int getLastVerifiedYear();
+
+    /**
+     * @return rule of vernal equinox in Tehran, which is the official calendar
+     */
+    static JalaliCalendarRules astronomical()
+    {
+        return AstronomicalRules.INSTANCE;
+    }
+
+    /**
+     * @return rule of 2820-year cycle, same as astronomical rule for years 1343 to 1402
+     */
+    static JalaliCalendarRules cycle2820()
+    {
+        return Cycle2820Rules.INSTANCE;
+    }
+
+    /**
+     * @return rule of 33-year cycle, same as astronomical rule for years 1343 to 1472
+     */
+    static JalaliCalendarRules cycle33()
+    {
+        return Cycle33Rules.INSTANCE;
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.eloyzone.jalalicalendar;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Objects;
 
 /**
@@ -7,64 +9,224 @@ import java.util.Objects;
  * <p>
  * This class holds some data about specific date in Jalali's Date format like year, month, day, day of week and
  * leap year
+ * <p>
+ * JalaliDate is immutable, all of its fields are final and day of week and leap year are calculated from them when
+ * they are asked, so objects can be cached and shared between threads without synchronization.
  *
  * @author Eloy (Elyas Hadizadeh Tasbiti)
  */
-public class JalaliDate
+public final class JalaliDate implements Comparable<JalaliDate>
 {
-    private int year;
-    private MonthPersian monthPersian;
-    private int day;
-    private DayOfWeekPersian dayOfWeekPersian;
-    private boolean leapYear = false;
-
     /**
-     * Only DateConverter is allowed to create an object of JalaliDate with empty constructor's argument
-     * <p>
-     * Other classes and methods must use another version.
+     * the largest year of a date. Years after 9999 are calculated astronomically, which gives wrong lengths of year
+     * from about year 24000, so dates are limited to years that are calculated right. Such years easily fit in the
+     * 23 bits that years take in the packed form (see {@link #pack(int, int, int)}), so comparing, hashing and
+     * ordering dates by their packed form is right for all of them.
      */
-    protected JalaliDate()
-    {
-    }
+    public static final int MAX_YEAR = 20000;
+
+    // the smallest year of a date, only dates that are calculated by DateConverter have years before 1
+    static final int MIN_PACKED_YEAR = -20000;
+
+    private final int year;
+    private final MonthPersian monthPersian;
+    private final int day;
 
     /**
      * creates an object of jalali date.
      *
-     * @param year  jalali year
+     * @param year  jalali year, from 1 to {@link #MAX_YEAR}
      * @param month from 1 to 12
      * @param day   from 1 to 31
      *
-     * @exception IllegalArgumentException if values are negative.
+     * @exception IllegalArgumentException if values are negative or year is after {@link #MAX_YEAR}.
      * @exception IllegalArgumentException if requested date is not possible.
      */
     public JalaliDate(int year, int month, int day)
     {
         basicArgumentValidating(year, month, day);
 
-        setYear(year);
+        this.year = year;
         this.monthPersian = MonthPersian.of(month);
         this.day = day;
 
-        if (!leapYear && month == 12 && day >= 30)
+        if (!isPossibleDate(year, month, day))
             throw new IllegalArgumentException("Wrong value for day, just in leap year last month must be greater than 29");
 
     }
 
+    // only for values that are already valid, like results of DateConverter
+    private JalaliDate(int year, MonthPersian monthPersian, int day)
+    {
+        this.year = year;
+        this.monthPersian = monthPersian;
+        this.day = day;
+    }
+
+    /**
+     * obtains an object of jalali date, it's the same as {@link #JalaliDate(int, int, int)}.
+     *
+     * @param year  jalali year
+     * @param month from 1 to 12
+     * @param day   from 1 to 31
+     * @return JalaliDate object
+     * @exception IllegalArgumentException if requested date is not possible.
+     */
+    public static JalaliDate of(int year, int month, int day)
+    {
+        return new JalaliDate(year, month, day);
+    }
+
+    /**
+     * obtains an object of jalali date.
+     *
+     * @param year  jalali year
+     * @param month jalali month, not null
+     * @param day   from 1 to 31
+     * @return JalaliDate object
+     * @exception IllegalArgumentException if requested date is not possible.
+     */
+    public static JalaliDate of(int year, MonthPersian month, int day)
+    {
+        Objects.requireNonNull(month, "month");
+        return new JalaliDate(year, month.getValue(), day);
+    }
+
+    /**
+     * obtains the jalali date of an epoch day, the same value that {@link LocalDate#toEpochDay()} returns.
+     *
+     * @param epochDay number of days since 1970-01-01
+     * @return JalaliDate object
+     */
+    public static JalaliDate ofEpochDay(long epochDay)
+    {
+        return DateConverter.shared().ofEpochDay(epochDay);
+    }
+
+    /**
+     * obtains the jalali date of a gregorian date.
+     *
+     * @param localDate gregorian date, not null
+     * @return JalaliDate object
+     */
+    public static JalaliDate from(LocalDate localDate)
+    {
+        Objects.requireNonNull(localDate, "localDate");
+        return ofEpochDay(localDate.toEpochDay());
+    }
+
+    // creates a date from packed values that are known to be valid
+    static JalaliDate ofValidPacked(int packed)
+    {
+        return new JalaliDate(packedYear(packed), MonthPersian.of(packedMonth(packed)), packedDay(packed));
+    }
+
+    /**
+     * checks a date without creating exceptions, it's used by parsers that return null for wrong dates.
+     *
+     * @return true if year is from 1 to {@link #MAX_YEAR} and month and day are a day of that year
+     */
+    static boolean isPossibleDate(int year, int month, int day)
+    {
+        if (year <= 0 || year > MAX_YEAR || month <= 0 || month > 12 || day <= 0)
+            return false;
+        if (month <= 6)
+            return day <= 31;
+        if (month <= 11)
+            return day <= 30;
+        return day <= 29 || (day == 30 && isLeapYear(year));
+    }
+
     private void basicArgumentValidating(int year, int month, int day)
     {
         if (month <= 0 || month > 12)
             throw new IllegalArgumentException("Wrong value for month, it must be from 1 to 12");
 
-        if (day <= 0 || day > 32)
+        if (day <= 0 || day > 31)
             throw new IllegalArgumentException("Wrong value for day, it must be from 1 to 31");
 
         if (year <= 0)
             throw new IllegalArgumentException("Wrong value for Year, it must be positive ");
 
+        if (year > MAX_YEAR)
+            throw new IllegalArgumentException("Wrong value for Year, it must not be after " + MAX_YEAR);
+
         if (month >= 7 && month <= 12 && day == 31)
             throw new IllegalArgumentException("Wrong value for day. in second half of year, months have less than 31 days ");
     }
 
+    /**
+     * creates an object of jalali date from a date that is packed in an int.
+     *
+     * @param packed jalali date packed by {@link #pack(int, int, int)}
+     * @return JalaliDate object
+     * @exception IllegalArgumentException if packed value is not a possible date.
+     */
+    public static JalaliDate fromPacked(int packed)
+    {
+        return new JalaliDate(packedYear(packed), packedMonth(packed), packedDay(packed));
+    }
+
+    /**
+     * packs this date in an int, see {@link #pack(int, int, int)}.
+     *
+     * @return packed form of this date
+     */
+    public int toPacked()
+    {
+        return pack(year, monthPersian.getValue(), day);
+    }
+
+    /**
+     * packs year, month and day of a jalali date in one int as {@code year << 9 | month << 5 | day}.
+     * <p>
+     * Day takes 5 bits and month takes 4 bits, so comparing two packed dates as plain ints gives the same result as
+     * comparing the dates and arrays of packed dates can be sorted with {@link java.util.Arrays#sort(int[])}.
+     *
+     * @param year  jalali year
+     * @param month from 1 to 12
+     * @param day   from 1 to 31
+     * @return packed date
+     * @exception IllegalArgumentException if year, month or day do not fit in their bits.
+     */
+    public static int pack(int year, int month, int day)
+    {
+        // day 32 or month 16 would change the next field and years outside MIN_PACKED_YEAR to MAX_YEAR can not be
+        // converted, so such values are rejected
+        if (month <= 0 || month > 12 || day <= 0 || day > 31)
+            throw new IllegalArgumentException("Wrong value for month or day, they can not be packed: " + month + ", " + day);
+        if (year < MIN_PACKED_YEAR || year > MAX_YEAR)
+            throw new IllegalArgumentException("Wrong value for year, it can not be packed: " + year);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    /**
+     * @param packed jalali date packed by {@link #pack(int, int, int)}
+     * @return year of the packed date
+     */
+    public static int packedYear(int packed)
+    {
+        return packed >> 9;
+    }
+
+    /**
+     * @param packed jalali date packed by {@link #pack(int, int, int)}
+     * @return month of the packed date, from 1 to 12
+     */
+    public static int packedMonth(int packed)
+    {
+        return (packed >> 5) & 0xF;
+    }
+
+    /**
+     * @param packed jalali date packed by {@link #pack(int, int, int)}
+     * @return day of the packed date, from 1 to 31
+     */
+    public static int packedDay(int packed)
+    {
+        return packed & 0x1F;
+    }
+
     /**
      * reformats jalali date with provided format. the result will be a string in either persian or english.
      *
@@ -78,15 +240,24 @@ public class JalaliDate
     }
 
     /**
-     * Transforms date to ISO-8601 standard contains year, month and day
+     * Transforms date to ISO-8601 standard contains year, month and day, like 1397-02-05. Year has at least 4 digits
+     * and month and day have 2 digits.
      *
      * @return String format of date
      */
     @Override
     public String toString()
     {
-        String date = year + "-" + monthPersian.getValue() + "-" + day;
-        return date;
+        if (year >= 1 && year <= 9999)
+        {
+            byte[] bytes = new byte[JalaliIsoCodec.LENGTH];
+            JalaliIsoCodec.encodePacked(toPacked(), bytes, 0, JalaliIsoCodec.DASH);
+            return new String(bytes, 0, bytes.length, StandardCharsets.US_ASCII);
+        }
+
+        // years that do not fit in 4 digits
+        int monthValue = monthPersian.getValue();
+        return year + (monthValue < 10 ? "-0" : "-") + monthValue + (day < 10 ? "-0" : "-") + day;
     }
 
     public int getYear()
@@ -95,33 +266,28 @@ public class JalaliDate
     }
 
     /**
-     * set year of jalali date and then checks is it a leap year or not.
+     * gets current day of week
      * <p>
-     * Note: only classes of this package needs this method, you'll never need it. use constructor instead.
-     *
+     * It's calculated from the epoch day of this date, which is Nowruz of the year from a precomputed table plus
+     * the day of year, so no conversion to gregorian is needed.
      *
-     * @param year input year
+     * @return DayOfWeekPersian object will be returned that user can get its persian or english string version by
+     * calling getStringInXXX() method.
      */
-    protected void setYear(int year)
+    public DayOfWeekPersian getDayOfWeek()
     {
-        this.year = year;
-        setLeapYear(new DateConverter().leapPersiana(year));
+        return DateConverter.dayOfWeekOfEpochDay(toEpochDay());
     }
 
     /**
-     * gets current day of week
+     * converts this date to its epoch day, the same count of days from 1970-01-01 that
+     * {@link LocalDate#toEpochDay()} uses.
      *
-     * @return DayOfWeekPersian object will be returned that user can get its persian or english string version by
-     * calling getStringInXXX() method.
+     * @return number of days since 1970-01-01, negative for dates before it
      */
-    public DayOfWeekPersian getDayOfWeek()
+    public long toEpochDay()
     {
-        if (dayOfWeekPersian == null)
-        {
-            dayOfWeekPersian = new DateConverter().getDayOfWeekPersian(this);
-            return dayOfWeekPersian;
-        } else
-            return dayOfWeekPersian;
+        return DateConverter.shared().toEpochDay(this);
     }
 
     public MonthPersian getMonthPersian()
@@ -129,37 +295,84 @@ public class JalaliDate
         return monthPersian;
     }
 
-    protected void setMonthPersian(MonthPersian monthPersian)
+    public int getDay()
     {
-        this.monthPersian = monthPersian;
+        return day;
     }
 
-    public int getDay()
+    /**
+     * checks whether year of this date is a leap year, it's calculated when it is asked so creating a date never
+     * checks for leap year unless it's the 30th of Esfand.
+     *
+     * @return true if year of this date has 366 days
+     */
+    public boolean isLeapYear()
     {
-        return day;
+        return isLeapYear(year);
     }
 
-    protected void setDay(int day)
+    /**
+     * checks whether provided jalali year is a leap year, see {@link DateConverter#isLeapYear(int)}.
+     *
+     * @param year jalali year, not after {@link #MAX_YEAR}
+     * @return true if the year has 366 days
+     * @exception IllegalArgumentException if year can not be calculated.
+     */
+    public static boolean isLeapYear(int year)
     {
-        this.day = day;
+        return DateConverter.isLeapYear(year);
     }
 
-    public boolean isLeapYear()
+    /**
+     * Compares this date to another date, dates are compared by their packed form which keeps order of year, month
+     * and day.
+     *
+     * @param otherDate the other date to compare to, not null
+     * @return negative if this date is before otherDate, zero if they are the same date and positive if it is after
+     */
+    @Override
+    public int compareTo(JalaliDate otherDate)
     {
-        return leapYear;
+        return Integer.compare(toPacked(), otherDate.toPacked());
     }
 
-    protected void setLeapYear(boolean leapYear)
+    /**
+     * @param otherDate the other date to compare to, not null
+     * @return true if this date is before otherDate
+     */
+    public boolean isBefore(JalaliDate otherDate)
     {
-        this.leapYear = leapYear;
+        return toPacked() < otherDate.toPacked();
     }
 
-    protected void setDayOfWeekPersian(DayOfWeekPersian dayOfWeekPersian)
+    /**
+     * @param otherDate the other date to compare to, not null
+     * @return true if this date is after otherDate
+     */
+    public boolean isAfter(JalaliDate otherDate)
     {
-        this.dayOfWeekPersian = dayOfWeekPersian;
+        return toPacked() > otherDate.toPacked();
     }
 
+    /**
+     * @param otherDate the other date to compare to, not null
+     * @return true if this date and otherDate are the same day
+     */
+    public boolean isEqual(JalaliDate otherDate)
+    {
+        return toPacked() == otherDate.toPacked();
+    }
 
+    /**
+     * A hash code for this date, which is its packed form.
+     *
+     * @return hash code of this date
+     */
+    @Override
+    public int hashCode()
+    {
+        return toPacked();
+    }
 
     /**
      * Checks if this date is equal to another date.
@@ -184,12 +397,7 @@ public class JalaliDate
 
     private boolean compare(JalaliDate otherDate)
     {
-        if (year != otherDate.getYear() || monthPersian.getValue() != otherDate.monthPersian.getValue() ||
-                day != otherDate.day || this.getDayOfWeek().getValue() != otherDate.getDayOfWeek().getValue() ||
-                leapYear != otherDate.leapYear)
-        {
-            return false;
-        } else
-            return true;
+        // day of week and leap year are derived from year, month and day so they are not compared
+        return year == otherDate.year && monthPersian == otherDate.monthPersian && day == otherDate.day;
     }
 }
@@ -0,0 +1,147 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.util.Arrays;
+
+/**
+ * This class contains methods for sorting arrays of jalali dates.
+ * <p>
+ * Dates are sorted by their packed form (see {@link JalaliDate#pack(int, int, int)}) with a stable LSD radix sort,
+ * each pass is a counting sort on one byte of the packed dates and passes that all dates have the same byte in are
+ * skipped, so dates of a few hundred years are usually sorted in two or three passes. Small ranges are sorted by
+ * {@link Arrays#sort(Object[], int, int)}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see JalaliDate
+ */
+public final class JalaliDateArrays
+{
+    private static final int RADIX_SORT_THRESHOLD = 256;
+
+    private JalaliDateArrays()
+    {
+    }
+
+    /**
+     * sorts dates in ascending order, same dates keep their order.
+     *
+     * @param dates array of dates without null elements
+     */
+    public static void sort(JalaliDate[] dates)
+    {
+        sort(dates, 0, dates.length);
+    }
+
+    /**
+     * sorts a range of dates in ascending order, same dates keep their order.
+     *
+     * @param dates     array of dates without null elements in the range
+     * @param fromIndex index of the first element to sort, inclusive
+     * @param toIndex   index of the last element to sort, exclusive
+     * @throws IndexOutOfBoundsException if the range is not inside the array
+     */
+    public static void sort(JalaliDate[] dates, int fromIndex, int toIndex)
+    {
+        checkRange(dates.length, fromIndex, toIndex);
+
+        int length = toIndex - fromIndex;
+        if (length < RADIX_SORT_THRESHOLD)
+        {
+            Arrays.sort(dates, fromIndex, toIndex);
+            return;
+        }
+
+        int[] keys = new int[length];
+        JalaliDate[] values = Arrays.copyOfRange(dates, fromIndex, toIndex);
+        for (int i = 0; i < length; i++)
+            keys[i] = values[i].toPacked();
+
+        radixSort(keys, values);
+        System.arraycopy(values, 0, dates, fromIndex, length);
+    }
+
+    /**
+     * sorts packed dates in ascending order, see {@link JalaliDate#pack(int, int, int)}.
+     *
+     * @param packedDates array of packed dates
+     */
+    public static void sortPacked(int[] packedDates)
+    {
+        sortPacked(packedDates, 0, packedDates.length);
+    }
+
+    /**
+     * sorts a range of packed dates in ascending order, see {@link JalaliDate#pack(int, int, int)}.
+     *
+     * @param packedDates array of packed dates
+     * @param fromIndex   index of the first element to sort, inclusive
+     * @param toIndex     index of the last element to sort, exclusive
+     * @throws IndexOutOfBoundsException if the range is not inside the array
+     */
+    public static void sortPacked(int[] packedDates, int fromIndex, int toIndex)
+    {
+        checkRange(packedDates.length, fromIndex, toIndex);
+
+        int length = toIndex - fromIndex;
+        if (length < RADIX_SORT_THRESHOLD)
+        {
+            Arrays.sort(packedDates, fromIndex, toIndex);
+            return;
+        }
+
+        int[] keys = Arrays.copyOfRange(packedDates, fromIndex, toIndex);
+        radixSort(keys, null);
+        System.arraycopy(keys, 0, packedDates, fromIndex, length);
+    }
+
+    /*
+        sorts keys and moves values (if they are given) with them. sign bit of keys is flipped while sorting, so
+        packed dates of negative years come before positive ones like signed comparison.
+     */
+    private static void radixSort(int[] keys, Object[] values)
+    {
+        int length = keys.length;
+        int[] keyBuffer = new int[length];
+        Object[] valueBuffer = (values == null) ? null : new Object[length];
+        int[] counts = new int[256];
+
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            Arrays.fill(counts, 0);
+            for (int key : keys)
+                counts[digit(key, shift)]++;
+
+            if (counts[digit(keys[0], shift)] == length)
+                continue; // all keys have the same digit, order is not changed by this pass
+
+            for (int i = 0, sum = 0; i < 256; i++)
+            {
+                int count = counts[i];
+                counts[i] = sum;
+                sum += count;
+            }
+
+            for (int i = 0; i < length; i++)
+            {
+                int position = counts[digit(keys[i], shift)]++;
+                keyBuffer[position] = keys[i];
+                if (values != null)
+                    valueBuffer[position] = values[i];
+            }
+
+            System.arraycopy(keyBuffer, 0, keys, 0, length);
+            if (values != null)
+                System.arraycopy(valueBuffer, 0, values, 0, length);
+        }
+    }
+
+    private static int digit(int key, int shift)
+    {
+        return ((key ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+    }
+
+    private static void checkRange(int length, int fromIndex, int toIndex)
+    {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > length)
+            throw new IndexOutOfBoundsException("Wrong range [" + fromIndex + ", " + toIndex + ") for array of length " + length);
+    }
+}
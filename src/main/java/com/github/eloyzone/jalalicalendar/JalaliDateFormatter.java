@@ -1,23 +1,44 @@
 package com.github.eloyzone.jalalicalendar;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.text.ParsePosition;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created By Eloy on 5/6/18.
  *
  * This class can be used for formatting an existing {@link JalaliDate}
  * <p>
+ * The pattern is parsed once, when the formatter is created, to an array of fields that each prints one part of a
+ * date, so formatting does not parse the pattern again. A formatter is immutable and can be kept in a static final
+ * field and used by all threads at the same time.
+ * <p>
+ * Besides {@link #format(JalaliDate)}, a date can be written to a StringBuilder, an Appendable, a char array or a
+ * ByteBuffer in UTF-8 by formatTo methods, they write the date directly and create no string.
+ * <p>
+ * The same pattern parses dates back by {@link #parse(CharSequence)}, or by {@link #parse(CharSequence, ParsePosition)}
+ * which returns null instead of throwing an exception for a wrong text.
+ * <p>
+ * Formatters of common patterns are constants of this class, like {@link #ISO_DATE}, and formatters of other patterns
+ * can be shared through {@link #ofPattern(String, int)}, so a pattern is compiled once in a JVM.
+ * <p>
  * Note: for formatting gregorian date based on {@link java.time.LocalDate} you have to use {@link DateTimeFormatter}.
  *
  * @author Eloy (Elyas Hadizadeh Tasbiti)
  */
-public class JalaliDateFormatter
+public final class JalaliDateFormatter
 {
-    private String pattern;
-    private int formatLanguage;
-    private JalaliDate jalaliDate;
+    private final String pattern;
+    private final int formatLanguage;
+    // fields of pattern in the order they are printed
+    private final DateFormatterTemporalField[] dateFormatterTemporalFields;
 
     /**
      * a flag for configuring the language of formatting.
@@ -25,7 +46,7 @@ public class JalaliDateFormatter
      * <p>
      * you can call it from outside of the class for setting formatting language. usually can be used in constructor
      */
-    public static int FORMAT_IN_PERSIAN = 1;
+    public static final int FORMAT_IN_PERSIAN = 1;
 
     /**
      * a flag for configuring the language of formatting.
@@ -33,17 +54,40 @@ public class JalaliDateFormatter
      * <p>
      * you can call it from outside of the class for setting formatting language. usually can be used in constructor
      */
-    public static int FORMAT_IN_ENGLISH = 2;
+    public static final int FORMAT_IN_ENGLISH = 2;
+
+    // most formatters that ofPattern keeps, patterns after that are compiled on each call
+    static final int MAX_CACHED_PATTERNS = 256;
+
+    // compiled formatters of ofPattern, one map for each language so looking up a pattern creates no key object
+    private static final ConcurrentHashMap<String, JalaliDateFormatter> PERSIAN_FORMATTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, JalaliDateFormatter> ENGLISH_FORMATTERS = new ConcurrentHashMap<>();
+
+    /**
+     * formats dates like ISO-8601 in english digits, for example 1370-11-28. Years have at least 4 digits, so it gives
+     * the same text as {@link JalaliDate#toString()}.
+     */
+    public static final JalaliDateFormatter ISO_DATE = ofPattern("yyyy-mm-dd", FORMAT_IN_ENGLISH);
+
+    /**
+     * formats dates with slashes in english digits, for example 1370/11/28.
+     */
+    public static final JalaliDateFormatter SLASH_DATE = ofPattern("yyyy/mm/dd", FORMAT_IN_ENGLISH);
+
+    /**
+     * formats dates with slashes in persian digits, for example ١٣٧٠/١١/٢٨.
+     */
+    public static final JalaliDateFormatter PERSIAN_SLASH_DATE = ofPattern("yyyy/mm/dd", FORMAT_IN_PERSIAN);
 
     /**
      * constructor that sets english as a default formatting language.
      *
      * @param pattern desired pattern.
+     * @exception IllegalArgumentException if the pattern is not valid.
      */
     public JalaliDateFormatter(String pattern)
     {
-        this.pattern = pattern;
-        this.formatLanguage = FORMAT_IN_ENGLISH;
+        this(pattern, FORMAT_IN_ENGLISH);
     }
 
     /**
@@ -51,177 +95,298 @@ public class JalaliDateFormatter
      *
      * @param pattern        desired pattern.
      * @param formatLanguage shows the selected language which 1 is persian and 2 is english.
+     * @exception IllegalArgumentException if the pattern is not valid.
      */
     public JalaliDateFormatter(String pattern, int formatLanguage)
     {
-        this.pattern = pattern;
+        this.pattern = Objects.requireNonNull(pattern, "pattern");
         this.formatLanguage = formatLanguage;
+
+        ArrayList<DateFormatterTemporalField> fields = parsePattern(pattern);
+        // persian text is written from right to left, so when it has a month name its fields are printed reversed
+        if (formatLanguage == FORMAT_IN_PERSIAN && pattern.contains("M"))
+            Collections.reverse(fields);
+        // numbers without anything between them are split by their widths when they are parsed
+        for (int i = 0; i + 1 < fields.size(); i++)
+            if (fields.get(i).isYear() && fields.get(i + 1).isNumber())
+                fields.set(i, fields.get(i).withAdjacentNumber());
+        this.dateFormatterTemporalFields = fields.toArray(new DateFormatterTemporalField[0]);
     }
 
     /**
-     * Returns a string that shows given jalali date in a proper formatting, it first parses the given pattern and
-     * creates some place holders for future values then it applies format.
+     * returns a formatter of pattern and language that is compiled once and shared, so call sites can get their
+     * formatter every time instead of keeping it.
+     * <p>
+     * Up to {@value #MAX_CACHED_PATTERNS} formatters of each language are kept, formatters of other patterns are
+     * created on each call. Languages other than {@link #FORMAT_IN_PERSIAN} and {@link #FORMAT_IN_ENGLISH} are never
+     * kept.
+     *
+     * @param pattern        desired pattern.
+     * @param formatLanguage shows the selected language which 1 is persian and 2 is english.
+     * @return shared JalaliDateFormatter object
+     * @exception IllegalArgumentException if the pattern is not valid.
+     */
+    public static JalaliDateFormatter ofPattern(String pattern, int formatLanguage)
+    {
+        ConcurrentHashMap<String, JalaliDateFormatter> formatters = formatLanguage == FORMAT_IN_PERSIAN ? PERSIAN_FORMATTERS
+                : formatLanguage == FORMAT_IN_ENGLISH ? ENGLISH_FORMATTERS : null;
+        if (formatters == null)
+            return new JalaliDateFormatter(pattern, formatLanguage);
+
+        JalaliDateFormatter jalaliDateFormatter = formatters.get(Objects.requireNonNull(pattern, "pattern"));
+        if (jalaliDateFormatter != null)
+            return jalaliDateFormatter;
+
+        jalaliDateFormatter = new JalaliDateFormatter(pattern, formatLanguage);
+        // size is only checked before putting, so a few more formatters may be kept when threads put at the same time
+        if (formatters.size() >= MAX_CACHED_PATTERNS)
+            return jalaliDateFormatter;
+        JalaliDateFormatter previous = formatters.putIfAbsent(pattern, jalaliDateFormatter);
+        return previous != null ? previous : jalaliDateFormatter;
+    }
+
+    /**
+     * returns a shared formatter of pattern in english, see {@link #ofPattern(String, int)}.
+     *
+     * @param pattern desired pattern.
+     * @return shared JalaliDateFormatter object
+     * @exception IllegalArgumentException if the pattern is not valid.
+     */
+    public static JalaliDateFormatter ofPattern(String pattern)
+    {
+        return ofPattern(pattern, FORMAT_IN_ENGLISH);
+    }
+
+    /**
+     * Returns a string that shows given jalali date in a proper formatting, each field of the compiled pattern prints
+     * its own part of the date.
      *
      * @param jalaliDate date that will be formatted in a proper way.
      * @return a formatted date in a string that can be persian or english
      */
     public String format(JalaliDate jalaliDate)
     {
-        this.jalaliDate = jalaliDate;
-
-        parsePattern(pattern);
-
-        String result = "";
-
+        char[] result = new char[formattedLength(jalaliDate)];
+        print(jalaliDate, result, 0);
+        return new String(result);
+    }
 
-        if (formatLanguage == FORMAT_IN_PERSIAN && pattern.contains("M"))
+    /**
+     * appends formatted jalali date to a StringBuilder, no string is created.
+     *
+     * @param jalaliDate date that will be formatted
+     * @param result     StringBuilder that formatted date is appended to
+     * @exception IllegalArgumentException if the date does not match the pattern, nothing is appended then.
+     */
+    public void formatTo(JalaliDate jalaliDate, StringBuilder result)
+    {
+        Objects.requireNonNull(result, "result");
+        result.ensureCapacity(result.length() + formattedLength(jalaliDate));
+        try
         {
-            for (int i = dateFormatterTemporalFields.size() - 1; i >= 0; i--)
-                result = result + applyFormat(i);
-        } else
+            print(jalaliDate, result);
+        } catch (IOException e)
         {
-            for (int i = 0; i < dateFormatterTemporalFields.size(); i++)
-                result = result + applyFormat(i);
+            // StringBuilder never throws it
+            throw new IllegalStateException(e);
         }
+    }
 
+    /**
+     * appends formatted jalali date to an Appendable, like a Writer or a CharBuffer, char by char.
+     *
+     * @param jalaliDate date that will be formatted
+     * @param result     Appendable that formatted date is appended to
+     * @throws IOException if result throws it
+     * @exception IllegalArgumentException if the date does not match the pattern, nothing is appended then.
+     */
+    public void formatTo(JalaliDate jalaliDate, Appendable result) throws IOException
+    {
+        Objects.requireNonNull(result, "result");
+        formattedLength(jalaliDate);
+        print(jalaliDate, result);
+    }
 
-        if (formatLanguage == FORMAT_IN_PERSIAN)
-        {
-            char[] resultChars = result.toCharArray();
-            for (int i = 0; i < resultChars.length; i++)
-            {
-                resultChars[i] = replaceWithPersian(resultChars[i]);
-            }
-            result = String.valueOf(resultChars);
-        }
-        return result;
+    /**
+     * writes formatted jalali date to a char array.
+     *
+     * @param jalaliDate date that will be formatted
+     * @param result     array that formatted date is written to
+     * @param offset     index of result that first char is written to
+     * @return number of chars that are written, see {@link #formattedLength(JalaliDate)}
+     * @exception IndexOutOfBoundsException if offset is negative or result has not enough room after offset, nothing is
+     * written then.
+     * @exception IllegalArgumentException if the date does not match the pattern.
+     */
+    public int formatTo(JalaliDate jalaliDate, char[] result, int offset)
+    {
+        int length = formattedLength(jalaliDate);
+        if (offset < 0 || offset > result.length - length)
+            throw new IndexOutOfBoundsException("Wrong offset " + offset + ", " + length + " chars do not fit in array of length " + result.length);
+        return print(jalaliDate, result, offset) - offset;
     }
 
-    /*
-        Creates string format of date based on list of temporal fields.
+    /**
+     * writes formatted jalali date to a ByteBuffer in UTF-8, from position of the buffer. Position is moved after the
+     * last written byte.
+     *
+     * @param jalaliDate date that will be formatted
+     * @param result     buffer that formatted date is written to
+     * @return number of bytes that are written
+     * @exception java.nio.BufferOverflowException if remaining bytes of result are not enough, nothing is written then.
+     * @exception IllegalArgumentException if the date does not match the pattern.
      */
-    private String applyFormat(int index)
+    public int formatTo(JalaliDate jalaliDate, ByteBuffer result)
     {
-        String result = "";
-        String temp = "";
+        Objects.requireNonNull(jalaliDate, "jalaliDate");
+        boolean persian = formatLanguage == FORMAT_IN_PERSIAN;
+        int length = 0;
+        for (DateFormatterTemporalField dateFormatterTemporalField : dateFormatterTemporalFields)
+            length += dateFormatterTemporalField.utf8Length(jalaliDate, persian);
+        if (result.remaining() < length)
+            throw new BufferOverflowException();
+
+        for (DateFormatterTemporalField dateFormatterTemporalField : dateFormatterTemporalFields)
+            dateFormatterTemporalField.print(jalaliDate, result, persian);
+        return length;
+    }
 
-        DateFormatterTemporalField dateFormatterTemporalField = dateFormatterTemporalFields.get(index);
+    /**
+     * parses a whole text to a jalali date by pattern of this formatter, it's the reverse of
+     * {@link #format(JalaliDate)}.
+     * <p>
+     * Digits can be english, persian (from \u06F0 to \u06F9) or arabic-indic (from \u0660 to \u0669) and month names
+     * can be english or persian whatever the language of the formatter is. Pattern must have a year, a month and a day.
+     *
+     * @param text text that will be parsed
+     * @return parsed JalaliDate object
+     * @exception DateTimeParseException if text does not match the pattern, has more chars after the date or is not a
+     * possible date.
+     */
+    public JalaliDate parse(CharSequence text)
+    {
+        ParsePosition position = new ParsePosition(0);
+        JalaliDate jalaliDate = parse(text, position);
+        if (jalaliDate == null)
+            throw new DateTimeParseException("Text '" + text + "' could not be parsed at index " + position.getErrorIndex(),
+                    text, position.getErrorIndex());
+        if (position.getIndex() < text.length())
+            throw new DateTimeParseException("Text '" + text + "' could not be parsed, unparsed text found at index "
+                    + position.getIndex(), text, position.getIndex());
+        return jalaliDate;
+    }
 
-        switch (dateFormatterTemporalField.getType())
+    /**
+     * parses a jalali date from a text starting at index of position, chars after the date are not read. Like
+     * {@link java.text.Format#parseObject(String, ParsePosition)} it does not throw exceptions, so wrong texts cost no
+     * more than right ones.
+     * <p>
+     * If the date is parsed index of position is moved after its last char, otherwise index is not changed and error
+     * index of position is set to index of the wrong char, or to the first char of the date if the date is not
+     * possible, like 1370/12/31.
+     *
+     * @param text     text that will be parsed
+     * @param position index of text that the date starts from, it's updated after parsing
+     * @return parsed JalaliDate object, or null if text does not match the pattern or is not a possible date
+     */
+    public JalaliDate parse(CharSequence text, ParsePosition position)
+    {
+        Objects.requireNonNull(text, "text");
+        Objects.requireNonNull(position, "position");
+
+        int start = position.getIndex();
+        if (start < 0 || start > text.length())
         {
-            case DateFormatterTemporalField.YEAR_FIElD:
-                if (dateFormatterTemporalField.getCount() == 2)
-                {
-                    temp = jalaliDate.getYear() + "";
-                    result = result + temp.substring(1, 3);
-                } else
-                {
-                    result = result + jalaliDate.getYear();
-                }
-                break;
-            case DateFormatterTemporalField.MONTH_FIElD:
+            position.setErrorIndex(start);
+            return null;
+        }
 
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int index = start;
+        for (int i = 0; i < dateFormatterTemporalFields.length; i++)
+        {
+            DateFormatterTemporalField dateFormatterTemporalField = dateFormatterTemporalFields[i];
+            boolean adjacentNumber = i + 1 < dateFormatterTemporalFields.length && dateFormatterTemporalFields[i + 1].isNumber();
+            long result = dateFormatterTemporalField.parse(text, index, adjacentNumber);
+            if (result < 0)
+            {
+                position.setErrorIndex((int) ~result);
+                return null;
+            }
 
-                int monthValue = jalaliDate.getMonthPersian().getValue();
+            index = (int) result;
+            int value = (int) (result >>> 32);
+            if (dateFormatterTemporalField.isYear())
+                year = value;
+            else if (dateFormatterTemporalField.isMonth())
+                month = value;
+            else if (dateFormatterTemporalField.isNumber())
+                day = value;
+        }
 
-                if (dateFormatterTemporalField.getCount() == 2)
-                {
-                    if (monthValue < 10)
-                    {
-                        temp = "0";
-                    }
-                    result = result + temp + monthValue;
-                } else
-                {
-                    if (monthValue < 10)
-                    {
-                        throw new IllegalArgumentException("format of month can not match with value");
-                    } else
-                    {
-                        result = result + temp + monthValue;
-                    }
-                }
-                break;
-            case DateFormatterTemporalField.DAY_FIElD:
-                if (dateFormatterTemporalField.getCount() == 2)
-                {
-                    int dayValue = jalaliDate.getDay();
-                    if (dayValue < 10)
-                    {
-                        temp = "0";
-                    }
-                    result = result + temp + dayValue;
-                } else // count equals to one
-                {
-                    int dayValue = jalaliDate.getDay();
-                    if (dayValue < 10)
-                    {
-                        throw new IllegalArgumentException("format of day can not match with value");
-                    } else
-                    {
-                        result = result + temp + dayValue;
-                    }
-                }
-                break;
-            case DateFormatterTemporalField.SPACE_FIElD:
-                for (int i = 0; i < dateFormatterTemporalField.getCount(); i++)
-                    result = result + " ";
-                break;
-            case DateFormatterTemporalField.DASH_FIElD:
-                for (int i = 0; i < dateFormatterTemporalField.getCount(); i++)
-                    result = result + "-";
-                break;
-            case DateFormatterTemporalField.SLASH_FIElD:
-                for (int i = 0; i < dateFormatterTemporalField.getCount(); i++)
-                    result = result + "/";
-                break;
-            case DateFormatterTemporalField.MONTH_STRING_FIElD:
-                String monthString = formatLanguage == FORMAT_IN_PERSIAN ? jalaliDate.getMonthPersian().getStringInPersian() : jalaliDate.getMonthPersian().getStringInEnglish();
-                result = result + monthString;
-                break;
+        // zero values are fields that pattern does not have
+        if (!JalaliDate.isPossibleDate(year, month, day))
+        {
+            position.setErrorIndex(start);
+            return null;
         }
-        return result;
+        position.setIndex(index);
+        return JalaliDate.ofValidPacked(JalaliDate.pack(year, month, day));
     }
 
     /**
-     * Replace english numbers with persian ones.
-     * <p>
-     * It changes each english number with its persian version,
-     * for example 1 becomes ۱.
-     *
-     * @param resultChar an english number that will be changed to persian.
-     * @return the persian version of number
+     * @param jalaliDate date that will be formatted
+     * @return number of chars of formatted jalali date
+     * @exception IllegalArgumentException if the date does not match the pattern.
      */
-    private char replaceWithPersian(char resultChar)
+    public int formattedLength(JalaliDate jalaliDate)
     {
-        if (resultChar == '0')
-            return '\u0660';
-        if (resultChar == '1')
-            return '\u0661';
-        if (resultChar == '2')
-            return '\u0662';
-        if (resultChar == '3')
-            return '\u0663';
-        if (resultChar == '4')
-            return '\u0664';
-        if (resultChar == '5')
-            return '\u0665';
-        if (resultChar == '6')
-            return '\u0666';
-        if (resultChar == '7')
-            return '\u0667';
-        if (resultChar == '8')
-            return '\u0668';
-        if (resultChar == '9')
-            return '\u0669';
-
-        return resultChar;
+        Objects.requireNonNull(jalaliDate, "jalaliDate");
+        boolean persian = formatLanguage == FORMAT_IN_PERSIAN;
+        int length = 0;
+        for (DateFormatterTemporalField dateFormatterTemporalField : dateFormatterTemporalFields)
+            length += dateFormatterTemporalField.length(jalaliDate, persian);
+        return length;
     }
 
+    // date is already checked by formattedLength
+    private int print(JalaliDate jalaliDate, char[] result, int offset)
+    {
+        boolean persian = formatLanguage == FORMAT_IN_PERSIAN;
+        for (DateFormatterTemporalField dateFormatterTemporalField : dateFormatterTemporalFields)
+            offset = dateFormatterTemporalField.print(jalaliDate, result, offset, persian);
+        return offset;
+    }
+
+    private void print(JalaliDate jalaliDate, Appendable result) throws IOException
+    {
+        boolean persian = formatLanguage == FORMAT_IN_PERSIAN;
+        for (DateFormatterTemporalField dateFormatterTemporalField : dateFormatterTemporalFields)
+            dateFormatterTemporalField.print(jalaliDate, result, persian);
+    }
+
+    public String getPattern()
+    {
+        return pattern;
+    }
 
-    // validate entered pattern and then inflate the array list of place holders ( temporal fields )
-    private void parsePattern(String pattern)
+    public int getFormatLanguage()
     {
+        return formatLanguage;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "JalaliDateFormatter[pattern=" + pattern + ", formatLanguage=" + formatLanguage + "]";
+    }
+
+    // validate entered pattern and then create the list of place holders ( temporal fields )
+    private static ArrayList<DateFormatterTemporalField> parsePattern(String pattern)
+    {
+        ArrayList<DateFormatterTemporalField> fields = new ArrayList<>();
         for (int pos = 0; pos < pattern.length(); pos++)
         {
             char cur = pattern.charAt(pos);
@@ -231,9 +396,9 @@ public class JalaliDateFormatter
                 for (; pos < pattern.length() && pattern.charAt(pos) == cur; pos++) ;  // short loop
                 int count = pos - start;
 
-                if (isValidPatternCharacter(String.valueOf(cur)))
+                if (isValidPatternCharacter(cur))
                 {
-                    parseField(cur, count); // create each temporal field
+                    fields.add(parseField(cur, count)); // create each temporal field
                 }
                 pos--;
             } else
@@ -241,17 +406,13 @@ public class JalaliDateFormatter
                 throw new IllegalArgumentException("Invalid character for formatting: " + cur);
             }
         }
+        return fields;
     }
 
-
-    // an array list of place holders for each pattern element, each pattern element will be mapped to one temporal field
-    private ArrayList<DateFormatterTemporalField> dateFormatterTemporalFields = new ArrayList<>();
-
     /*
-        according to position and numbers of each pattern element ( like mm ), it creates one temporal field and add it
-        to list of temporal fields.
+        according to position and numbers of each pattern element ( like mm ), it creates one temporal field.
     */
-    private void parseField(char cur, int count)
+    private static DateFormatterTemporalField parseField(char cur, int count)
     {
         switch (cur)
         {
@@ -260,63 +421,39 @@ public class JalaliDateFormatter
                 {
                     throw new IllegalArgumentException("Not enough pattern letters: " + cur);
                 }
-                if (count == 2)
-                {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(2, DateFormatterTemporalField.YEAR_FIElD));
-                } else if (count == 4)
-                {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(4, DateFormatterTemporalField.YEAR_FIElD));
-                } else
+                if (count == 4)
                 {
-                    throw new IllegalArgumentException("Too many pattern letters: " + cur);
+                    return new DateFormatterTemporalField(4, DateFormatterTemporalField.YEAR_FIElD);
                 }
-                break;
+                throw new IllegalArgumentException("Too many pattern letters: " + cur);
 
             case 'm':
-                if (count == 1)
-                {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(1, DateFormatterTemporalField.MONTH_FIElD));
-                } else if (count == 2)
-                {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(2, DateFormatterTemporalField.MONTH_FIElD));
-                } else
+                if (count == 1 || count == 2)
                 {
-                    throw new IllegalArgumentException("Too many pattern letters: " + cur);
+                    return new DateFormatterTemporalField(count, DateFormatterTemporalField.MONTH_FIElD);
                 }
-                break;
+                throw new IllegalArgumentException("Too many pattern letters: " + cur);
 
             case 'M':
                 if (count == 1)
                 {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(1, DateFormatterTemporalField.MONTH_STRING_FIElD));
-                } else
-                {
-                    throw new IllegalArgumentException("Too many pattern letters: " + cur);
+                    return new DateFormatterTemporalField(1, DateFormatterTemporalField.MONTH_STRING_FIElD);
                 }
-                break;
+                throw new IllegalArgumentException("Too many pattern letters: " + cur);
 
             case 'd':
-                if (count == 1)
-                {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(1, DateFormatterTemporalField.DAY_FIElD));
-                } else if (count == 2)
-                {
-                    dateFormatterTemporalFields.add(new DateFormatterTemporalField(2, DateFormatterTemporalField.DAY_FIElD));
-                } else
+                if (count == 1 || count == 2)
                 {
-                    throw new IllegalArgumentException("Too many pattern letters: " + cur);
+                    return new DateFormatterTemporalField(count, DateFormatterTemporalField.DAY_FIElD);
                 }
-                break;
+                throw new IllegalArgumentException("Too many pattern letters: " + cur);
 
             case ' ':
-                dateFormatterTemporalFields.add(new DateFormatterTemporalField(count, DateFormatterTemporalField.SPACE_FIElD));
-                break;
+                return new DateFormatterTemporalField(count, DateFormatterTemporalField.SPACE_FIElD);
             case '-':
-                dateFormatterTemporalFields.add(new DateFormatterTemporalField(count, DateFormatterTemporalField.DASH_FIElD));
-                break;
-            case '/':
-                dateFormatterTemporalFields.add(new DateFormatterTemporalField(count, DateFormatterTemporalField.SLASH_FIElD));
-                break;
+                return new DateFormatterTemporalField(count, DateFormatterTemporalField.DASH_FIElD);
+            default: // '/'
+                return new DateFormatterTemporalField(count, DateFormatterTemporalField.SLASH_FIElD);
         }
     }
 
@@ -329,22 +466,10 @@ public class JalaliDateFormatter
      * d: day               (Note: use dd)
      * ' ', '/' and '-' can be used as a separator.
      */
-    private String[] validPatternCharacters = {"y", "m", "M", "d", " ", "/", "-"};
+    private static final String VALID_PATTERN_CHARACTERS = "ymMd /-";
 
-
-    private boolean isValidPatternCharacter(String character)
+    private static boolean isValidPatternCharacter(char character)
     {
-        // for (String validPatternCharacter : validPatternCharacters)
-        // {
-        //     if (validPatternCharacter.equals(character))
-        //     {
-        //         return true;
-        //     }
-        // }
-        // return false;
-
-        return Arrays.stream(validPatternCharacters).anyMatch(x -> x.equals(character));
+        return VALID_PATTERN_CHARACTERS.indexOf(character) >= 0;
     }
-
-
 }
@@ -0,0 +1,113 @@
+package com.github.eloyzone.jalalicalendar;
+
+/**
+ * This class keeps one shared {@link JalaliDate} object for every day of a window of jalali years.
+ * <p>
+ * Objects are created once, when the pool is created, and they are kept in an array that is indexed by the epoch day
+ * of the date minus epoch day of the first day of the window. A {@link DateConverter} that uses a pool (see
+ * {@link DateConverter#withPool(JalaliDatePool)}) returns these objects for dates inside the window, so converting
+ * them is an array read and no object is created. JalaliDate is immutable so the same object can be returned to
+ * all threads.
+ * <p>
+ * Each year needs 365 or 366 objects, for example years 1390 to 1420 need about 11,000 objects, so windows should
+ * cover only the years that are used frequently.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see DateConverter#withPool(JalaliDatePool)
+ */
+public final class JalaliDatePool
+{
+    private final int firstYear;
+    private final int lastYear;
+    private final long firstEpochDay;
+    private final JalaliDate[] dates;
+
+    /**
+     * creates a pool that has all days of jalali years firstYear to lastYear.
+     *
+     * @param firstYear first jalali year of the window, inclusive
+     * @param lastYear  last jalali year of the window, inclusive
+     * @exception IllegalArgumentException if firstYear is not positive, lastYear is before firstYear or lastYear is not
+     *                                     before {@link JalaliDate#MAX_YEAR}, the window ends at nowruz of the year after
+     *                                     lastYear so that year must be supported too.
+     */
+    public JalaliDatePool(int firstYear, int lastYear)
+    {
+        if (firstYear <= 0)
+            throw new IllegalArgumentException("Wrong value for first year, it must be positive");
+
+        if (lastYear < firstYear)
+            throw new IllegalArgumentException("Wrong value for last year, it must not be before first year");
+
+        if (lastYear >= JalaliDate.MAX_YEAR)
+            throw new IllegalArgumentException("Wrong value for last year, window ends at nowruz of next year so it must be before "
+                    + JalaliDate.MAX_YEAR);
+
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.firstEpochDay = DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(firstYear, 1, 1));
+
+        long endEpochDay = DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(lastYear + 1, 1, 1));
+        if (endEpochDay - firstEpochDay > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Wrong value for last year, window has too many days");
+
+        this.dates = new JalaliDate[(int) (endEpochDay - firstEpochDay)];
+        for (int i = 0; i < dates.length; i++)
+            dates[i] = JalaliDate.ofValidPacked(DateConverter.epochDayToJalaliPacked(firstEpochDay + i));
+    }
+
+    /**
+     * returns shared object of a date that is inside the window.
+     *
+     * @param epochDay number of days since 1970-01-01, the same value that {@link java.time.LocalDate#toEpochDay()}
+     *                 returns
+     * @return shared JalaliDate object, or null if the date is not inside the window
+     */
+    public JalaliDate get(long epochDay)
+    {
+        long index = epochDay - firstEpochDay;
+        if (index < 0 || index >= dates.length)
+            return null;
+        return dates[(int) index];
+    }
+
+    /**
+     * returns shared object of provided date if it is inside the window, otherwise the date itself.
+     *
+     * @param jalaliDate date that will be interned, not null
+     * @return shared JalaliDate object that is equal to jalaliDate, or jalaliDate if it is not inside the window
+     */
+    public JalaliDate intern(JalaliDate jalaliDate)
+    {
+        if (jalaliDate.getYear() < firstYear || jalaliDate.getYear() > lastYear)
+            return jalaliDate;
+        return dates[(int) (jalaliDate.toEpochDay() - firstEpochDay)];
+    }
+
+    /**
+     * @param epochDay number of days since 1970-01-01
+     * @return true if the date is inside the window of this pool
+     */
+    public boolean covers(long epochDay)
+    {
+        return epochDay >= firstEpochDay && epochDay - firstEpochDay < dates.length;
+    }
+
+    public int getFirstYear()
+    {
+        return firstYear;
+    }
+
+    public int getLastYear()
+    {
+        return lastYear;
+    }
+
+    /**
+     * @return number of days, and shared objects, of the window
+     */
+    public int size()
+    {
+        return dates.length;
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class reads and writes jalali dates of fixed width ASCII form, yyyy-mm-dd or yyyy/mm/dd, directly from and to
+ * byte arrays and ByteBuffers, like fields of CSV files or messages, without creating strings.
+ * <p>
+ * A date always has {@value #LENGTH} bytes: 4 digits of year, a separator, 2 digits of month, the same separator and 2
+ * digits of day. The first 8 bytes are read as one long and all of their digits and separators are checked at once by
+ * SWAR (SIMD within a register) operations, so checking a date has almost no branches, then year and month are
+ * calculated from the same long. Dates are written the same way, all digits are calculated in one long.
+ * <p>
+ * Methods of this class are static and use absolute indexes, positions of ByteBuffers are not changed.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see JalaliDateFormatter#ISO_DATE
+ */
+public final class JalaliIsoCodec
+{
+    /**
+     * number of bytes of a date.
+     */
+    public static final int LENGTH = 10;
+
+    public static final byte DASH = '-';
+    public static final byte SLASH = '/';
+
+    /**
+     * returned by decodePacked methods for bytes that are not a possible date, a packed date is never negative.
+     */
+    public static final int INVALID = -1;
+
+    /*
+        masks of the first 8 bytes when they are read as a little endian long, so byte i of the date is byte i of the
+        long. bytes 0 to 3, 5 and 6 are digits, bytes 4 and 7 are separators.
+     */
+    private static final long DIGIT_MASK = 0x00FFFF00FFFFFFFFL;
+    private static final long DIGIT_HIGH_NIBBLES = 0x00F0F000F0F0F0F0L;
+    private static final long DIGIT_ZEROS = 0x0030300030303030L;
+    private static final long DIGIT_SIXES = 0x0006060006060606L;
+
+    private JalaliIsoCodec()
+    {
+    }
+
+    /**
+     * reads a date from bytes.
+     *
+     * @param bytes  array that has the date
+     * @param offset index of first byte of the date
+     * @return packed jalali date (see {@link JalaliDate#pack(int, int, int)}), or {@link #INVALID} if bytes are not a
+     * date of this form or are not a possible date
+     * @exception IndexOutOfBoundsException if bytes has not {@value #LENGTH} bytes from offset.
+     */
+    public static int decodePacked(byte[] bytes, int offset)
+    {
+        checkRange(bytes.length, offset);
+        long word = (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24
+                | (bytes[offset + 4] & 0xFFL) << 32
+                | (bytes[offset + 5] & 0xFFL) << 40
+                | (bytes[offset + 6] & 0xFFL) << 48
+                | (bytes[offset + 7] & 0xFFL) << 56;
+        return decode(word, bytes[offset + 8], bytes[offset + 9]);
+    }
+
+    /**
+     * reads a date from a buffer, position of the buffer is not changed.
+     *
+     * @param buffer buffer that has the date, of any byte order
+     * @param index  index of first byte of the date
+     * @return packed jalali date, or {@link #INVALID} if bytes are not a date of this form or are not a possible date
+     * @exception IndexOutOfBoundsException if buffer has not {@value #LENGTH} bytes from index before its limit.
+     */
+    public static int decodePacked(ByteBuffer buffer, int index)
+    {
+        checkRange(buffer.limit(), index);
+        long word = buffer.getLong(index);
+        if (buffer.order() == ByteOrder.BIG_ENDIAN)
+            word = Long.reverseBytes(word);
+        return decode(word, buffer.get(index + 8), buffer.get(index + 9));
+    }
+
+    /**
+     * reads a date from bytes.
+     *
+     * @param bytes  array that has the date
+     * @param offset index of first byte of the date
+     * @return JalaliDate object
+     * @exception IllegalArgumentException if bytes are not a date of this form or are not a possible date.
+     * @exception IndexOutOfBoundsException if bytes has not {@value #LENGTH} bytes from offset.
+     */
+    public static JalaliDate decode(byte[] bytes, int offset)
+    {
+        return toJalaliDate(decodePacked(bytes, offset), offset);
+    }
+
+    /**
+     * reads a date from a buffer, position of the buffer is not changed.
+     *
+     * @param buffer buffer that has the date
+     * @param index  index of first byte of the date
+     * @return JalaliDate object
+     * @exception IllegalArgumentException if bytes are not a date of this form or are not a possible date.
+     * @exception IndexOutOfBoundsException if buffer has not {@value #LENGTH} bytes from index before its limit.
+     */
+    public static JalaliDate decode(ByteBuffer buffer, int index)
+    {
+        return toJalaliDate(decodePacked(buffer, index), index);
+    }
+
+    /**
+     * writes a packed date to bytes.
+     *
+     * @param packed    packed jalali date, its year must be from 1 to 9999
+     * @param bytes     array that the date is written to
+     * @param offset    index of first byte of the date
+     * @param separator {@link #DASH} or {@link #SLASH}
+     * @exception IllegalArgumentException if year does not have 4 digits, packed value is not a possible date or
+     * separator is not a dash or a slash, nothing is written then.
+     * @exception IndexOutOfBoundsException if bytes has not {@value #LENGTH} bytes from offset, nothing is written then.
+     */
+    public static void encodePacked(int packed, byte[] bytes, int offset, byte separator)
+    {
+        checkRange(bytes.length, offset);
+        long word = encode(packed, separator);
+        for (int i = 0; i < 8; i++)
+            bytes[offset + i] = (byte) (word >>> (i * 8));
+        bytes[offset + 8] = (byte) ('0' + JalaliDate.packedDay(packed) / 10);
+        bytes[offset + 9] = (byte) ('0' + JalaliDate.packedDay(packed) % 10);
+    }
+
+    /**
+     * writes a packed date to a buffer, position of the buffer is not changed.
+     *
+     * @param packed    packed jalali date, its year must be from 1 to 9999
+     * @param buffer    buffer that the date is written to, of any byte order
+     * @param index     index of first byte of the date
+     * @param separator {@link #DASH} or {@link #SLASH}
+     * @exception IllegalArgumentException if year does not have 4 digits, packed value is not a possible date or
+     * separator is not a dash or a slash, nothing is written then.
+     * @exception IndexOutOfBoundsException if buffer has not {@value #LENGTH} bytes from index before its limit.
+     */
+    public static void encodePacked(int packed, ByteBuffer buffer, int index, byte separator)
+    {
+        checkRange(buffer.limit(), index);
+        long word = encode(packed, separator);
+        buffer.putLong(index, buffer.order() == ByteOrder.BIG_ENDIAN ? Long.reverseBytes(word) : word);
+        buffer.put(index + 8, (byte) ('0' + JalaliDate.packedDay(packed) / 10));
+        buffer.put(index + 9, (byte) ('0' + JalaliDate.packedDay(packed) % 10));
+    }
+
+    /**
+     * writes a date to bytes in ISO-8601 form, yyyy-mm-dd.
+     *
+     * @param jalaliDate date that is written, its year must be from 1 to 9999
+     * @param bytes      array that the date is written to
+     * @param offset     index of first byte of the date
+     * @exception IllegalArgumentException if year does not have 4 digits.
+     * @exception IndexOutOfBoundsException if bytes has not {@value #LENGTH} bytes from offset.
+     */
+    public static void encode(JalaliDate jalaliDate, byte[] bytes, int offset)
+    {
+        encodePacked(jalaliDate.toPacked(), bytes, offset, DASH);
+    }
+
+    /**
+     * writes a date to a buffer in ISO-8601 form, yyyy-mm-dd, position of the buffer is not changed.
+     *
+     * @param jalaliDate date that is written, its year must be from 1 to 9999
+     * @param buffer     buffer that the date is written to
+     * @param index      index of first byte of the date
+     * @exception IllegalArgumentException if year does not have 4 digits.
+     * @exception IndexOutOfBoundsException if buffer has not {@value #LENGTH} bytes from index before its limit.
+     */
+    public static void encode(JalaliDate jalaliDate, ByteBuffer buffer, int index)
+    {
+        encodePacked(jalaliDate.toPacked(), buffer, index, DASH);
+    }
+
+    private static void checkRange(int length, int offset)
+    {
+        if (offset < 0 || offset > length - LENGTH)
+            throw new IndexOutOfBoundsException("Wrong offset " + offset + ", a date of " + LENGTH + " bytes does not fit in " + length + " bytes");
+    }
+
+    private static JalaliDate toJalaliDate(int packed, int offset)
+    {
+        if (packed == INVALID)
+            throw new IllegalArgumentException("Wrong jalali date at offset " + offset);
+        return JalaliDate.ofValidPacked(packed);
+    }
+
+    /*
+        word is the first 8 bytes of the date, dayTens and dayOnes are the last 2 bytes.
+     */
+    private static int decode(long word, byte dayTens, byte dayOnes)
+    {
+        // a byte is a digit if its high nibble is 3 and adding 6 to it keeps the high nibble 3, no byte carries to
+        // the next one when the first check holds
+        boolean digits = (word & DIGIT_HIGH_NIBBLES) == DIGIT_ZEROS & ((word + DIGIT_SIXES) & DIGIT_HIGH_NIBBLES) == DIGIT_ZEROS;
+
+        int separator = (int) (word >>> 32) & 0xFF;
+        boolean separators = separator == ((int) (word >>> 56) & 0xFF) & (separator == DASH | separator == SLASH);
+
+        int tens = dayTens - '0';
+        int ones = dayOnes - '0';
+        boolean dayDigits = (tens | ones | (9 - tens) | (9 - ones)) >= 0;
+
+        if (!(digits & separators & dayDigits))
+            return INVALID;
+
+        long values = (word & DIGIT_MASK) - DIGIT_ZEROS;
+
+        // pairs of year digits are combined, then the two pairs
+        long year = values & 0xFFFFFFFFL;
+        year = (year * 10 + (year >>> 8)) & 0x00FF00FFL;
+        int yearValue = (int) ((year & 0xFF) * 100 + (year >>> 16));
+
+        int monthValue = (int) ((values >>> 40) & 0xFF) * 10 + (int) ((values >>> 48) & 0xFF);
+        int dayValue = tens * 10 + ones;
+
+        if (!JalaliDate.isPossibleDate(yearValue, monthValue, dayValue))
+            return INVALID;
+        return JalaliDate.pack(yearValue, monthValue, dayValue);
+    }
+
+    /*
+        first 8 bytes of a date as a little endian long. two digit values, first and last two digits of year, month
+        and day, are kept in 16 bit lanes of one long and tens of all of them are calculated by one multiplication:
+        (value * 103) >>> 10 is value / 10 for values below 179.
+     */
+    private static long encode(int packed, byte separator)
+    {
+        int year = JalaliDate.packedYear(packed);
+        if (year < 1 || year > 9999)
+            throw new IllegalArgumentException("Wrong value for year, it must be from 1 to 9999 to have 4 digits");
+        // month and day bits of any int are written as they are, so a date that decode would reject is not written
+        if (!JalaliDate.isPossibleDate(year, JalaliDate.packedMonth(packed), JalaliDate.packedDay(packed)))
+            throw new IllegalArgumentException("Wrong packed date, month " + JalaliDate.packedMonth(packed) + " and day "
+                    + JalaliDate.packedDay(packed) + " are not a day of year " + year);
+        if (separator != DASH && separator != SLASH)
+            throw new IllegalArgumentException("Wrong separator, it must be a dash or a slash");
+
+        long lanes = (year / 100) | (long) (year % 100) << 16 | (long) JalaliDate.packedMonth(packed) << 32
+                | (long) JalaliDate.packedDay(packed) << 48;
+        long tens = ((lanes * 103) >>> 10) & 0x000F000F000F000FL;
+        long ones = lanes - tens * 10;
+        long ascii = (tens | ones << 8) + 0x3030303030303030L;
+
+        return (ascii & 0xFFFFFFFFL)
+                | (long) separator << 32
+                | ((ascii >>> 32) & 0xFFFF) << 40
+                | (long) separator << 56;
+    }
+}
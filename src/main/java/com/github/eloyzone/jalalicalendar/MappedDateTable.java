@@ -0,0 +1,237 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a read-only table of jalali dates that is kept in a file and is mapped to memory, so many JVMs of a
+ * host can use one copy of it from the page cache of operating system instead of each one building its own tables.
+ * <p>
+ * For each day of a range of jalali years the file has its packed jalali date (see {@link JalaliDate#pack(int, int,
+ * int)}) and for each year it has the epoch day of its Nowruz, which is used for converting jalali dates back to
+ * epoch days. The file is written by {@link #write(Path, int, int)}, or by running this class:
+ * <pre>
+ * java com.github.eloyzone.jalalicalendar.MappedDateTable &lt;file&gt; &lt;first year&gt; &lt;last year&gt;
+ * </pre>
+ * Layout of the file, all values are little endian:
+ * <pre>
+ * offset  size      value
+ * 0       4         magic, "JDMT"
+ * 4       4         version of the layout
+ * 8       4         first jalali year
+ * 12      4         last jalali year
+ * 16      8         epoch day of Nowruz of first year
+ * 24      4         number of days
+ * 28      4         CRC32 of the rest of the file
+ * 32      4 * days  packed jalali date of each day
+ * ...     4 * years epoch day of Nowruz of each year and the year after last year, relative to the first day
+ * </pre>
+ * A table is used by a {@link DateConverter} that is created with {@link DateConverter#withMappedTable(MappedDateTable)}.
+ * Reads are absolute reads of the mapped buffer, so a table can be used by many threads at the same time.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see DateConverter#withMappedTable(MappedDateTable)
+ */
+public final class MappedDateTable
+{
+    // "JDMT" when it's read as a little endian int
+    private static final int MAGIC = 0x544D444A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final int firstYear;
+    private final int lastYear;
+    private final long firstEpochDay;
+    private final int dayCount;
+    private final int yearStartOffset;
+
+    private MappedDateTable(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.firstYear = buffer.getInt(8);
+        this.lastYear = buffer.getInt(12);
+        this.firstEpochDay = buffer.getLong(16);
+        this.dayCount = buffer.getInt(24);
+        this.yearStartOffset = HEADER_SIZE + dayCount * 4;
+    }
+
+    /**
+     * maps a file that is written by {@link #write(Path, int, int)} to memory and checks its header and checksum.
+     * <p>
+     * The file is closed when this method returns, its memory stays mapped as long as the table is used.
+     *
+     * @param file path of the file
+     * @return MappedDateTable object
+     * @throws IOException if the file can not be read, or it is not a table of this version, or its checksum is wrong
+     */
+    public static MappedDateTable open(Path file) throws IOException
+    {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Wrong size of date table " + file + ": " + channel.size());
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a date table");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Wrong version of date table " + file + ": " + buffer.getInt(4));
+
+        long years = (long) buffer.getInt(12) - buffer.getInt(8) + 1;
+        long days = buffer.getInt(24);
+        if (years <= 0 || days <= 0 || HEADER_SIZE + (days + years + 1) * 4 != buffer.capacity())
+            throw new IOException("Wrong header of date table " + file);
+
+        if (checksum(buffer) != buffer.getInt(28))
+            throw new IOException("Wrong checksum of date table " + file);
+
+        return new MappedDateTable(buffer);
+    }
+
+    private static int checksum(ByteBuffer buffer)
+    {
+        // CRC32.update(ByteBuffer) is not available in java 8, so the buffer is copied in chunks
+        CRC32 crc32 = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        byte[] chunk = new byte[8192];
+        while (body.hasRemaining())
+        {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            crc32.update(chunk, 0, length);
+        }
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * writes a table of all days of jalali years firstYear to lastYear, dates are converted by {@link DateConverter}.
+     * <p>
+     * The table is written to a temporary file that is then moved to file, so processes that open file at the same
+     * time never see a half written table.
+     *
+     * @param file      path of the file, it's replaced if it exists
+     * @param firstYear first jalali year of the table, inclusive
+     * @param lastYear  last jalali year of the table, inclusive
+     * @throws IOException              if the file can not be written
+     * @throws IllegalArgumentException if firstYear is not positive, lastYear is before firstYear, lastYear is not
+     *                                  before {@link JalaliDate#MAX_YEAR} or the table does not fit in 2GB, nothing
+     *                                  is written then. The table keeps nowruz of the year after lastYear, so that
+     *                                  year must be supported too.
+     */
+    public static void write(Path file, int firstYear, int lastYear) throws IOException
+    {
+        if (firstYear <= 0)
+            throw new IllegalArgumentException("Wrong value for first year, it must be positive");
+        if (lastYear < firstYear)
+            throw new IllegalArgumentException("Wrong value for last year, it must not be before first year");
+        if (lastYear >= JalaliDate.MAX_YEAR)
+            throw new IllegalArgumentException("Wrong value for last year, table keeps nowruz of next year so it must be before "
+                    + JalaliDate.MAX_YEAR);
+
+        long firstEpochDay = DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(firstYear, 1, 1));
+        long days = DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(lastYear + 1, 1, 1)) - firstEpochDay;
+        long years = (long) lastYear - firstYear + 1;
+        if (HEADER_SIZE + (days + years + 1) * 4 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Wrong range of years, table is larger than 2GB");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_SIZE + (days + years + 1) * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(firstYear).putInt(lastYear).putLong(firstEpochDay).putInt((int) days).putInt(0);
+        for (long epochDay = firstEpochDay; epochDay < firstEpochDay + days; epochDay++)
+            buffer.putInt(DateConverter.epochDayToJalaliPacked(epochDay));
+        for (int year = firstYear; year <= lastYear + 1; year++)
+            buffer.putInt((int) (DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(year, 1, 1)) - firstEpochDay));
+        buffer.putInt(28, checksum(buffer));
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE))
+            {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * writes a table file, arguments are path of the file, first year and last year. Nothing is printed, the file is
+     * written when the exit status is zero and an exception is thrown otherwise.
+     *
+     * @param args path of the file, first jalali year and last jalali year, years are checked like {@link #write}
+     * @throws IOException if the file can not be written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 3)
+            throw new IllegalArgumentException("Usage: MappedDateTable <file> <first year> <last year>");
+
+        write(Paths.get(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+    }
+
+    /**
+     * @param epochDay number of days since 1970-01-01
+     * @return true if the day is inside years of this table
+     */
+    public boolean coversEpochDay(long epochDay)
+    {
+        return epochDay >= firstEpochDay && epochDay - firstEpochDay < dayCount;
+    }
+
+    /**
+     * @param year jalali year
+     * @return true if the year is one of years of this table
+     */
+    public boolean coversYear(int year)
+    {
+        return year >= firstYear && year <= lastYear;
+    }
+
+    /**
+     * @param epochDay a day that is covered by this table, see {@link #coversEpochDay(long)}
+     * @return packed jalali date of the day
+     */
+    public int packedOfEpochDay(long epochDay)
+    {
+        return buffer.getInt(HEADER_SIZE + (int) (epochDay - firstEpochDay) * 4);
+    }
+
+    /**
+     * @param year a year that is covered by this table, see {@link #coversYear(int)}
+     * @return epoch day of 1 Farvardin of the year
+     */
+    public long nowruzEpochDay(int year)
+    {
+        return firstEpochDay + buffer.getInt(yearStartOffset + (year - firstYear) * 4);
+    }
+
+    public int getFirstYear()
+    {
+        return firstYear;
+    }
+
+    public int getLastYear()
+    {
+        return lastYear;
+    }
+}
@@ -101,12 +101,9 @@ public enum MonthPersian
 
     public static MonthPersian getEnum(int value)
     {
-        for (MonthPersian monthPersian : MonthPersian.values())
-        {
-            if (monthPersian.ordinal() == value)
-                return monthPersian;
-        }
-        return null; //For values out of enum scope
+        if (value < 0 || value >= ENUMS.length)
+            return null; //For values out of enum scope
+        return ENUMS[value];
     }
 
     /**
@@ -0,0 +1,195 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class holds a precomputed table of Nowruz (1 Farvardin) julian days for a wide range of jalali years.
+ * <p>
+ * Values are the ones that DateConverter's astronomical code (tehran's vernal equinox) produces. They are calculated
+ * once when the library is built by {@link NowruzTableGenerator} and are kept in the {@value #RESOURCE_NAME} resource
+ * as Nowruz of the first year and a leap-year bitmap, so finding the beginning of a year becomes an array read
+ * instead of evaluating equinox, nutation and sun position series and starting a JVM does not calculate them either.
+ * <p>
+ * The resource is read when this class is used for the first time, which is the lazy holder idiom. If it's missing,
+ * for example when classes are compiled without maven, the table is empty and DateConverter calculates and caches
+ * each year when it's needed, so results are the same and only slower. Tests of the build fail if the resource is
+ * missing or empty, so a jar is never packaged without it.
+ * <p>
+ * This class is protected by this package and just will be used by DateConverter class.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see DateConverter
+ * @see NowruzTableGenerator
+ */
+final class NowruzTable
+{
+    static final String RESOURCE_NAME = "nowruz-table.bin";
+    // "JNWZ", first four bytes of the resource
+    static final int MAGIC = 0x4A4E575A;
+    static final int VERSION = 1;
+
+    private static final Contents CONTENTS = Contents.read();
+
+    static final int FIRST_YEAR = CONTENTS.firstYear;
+    static final int LAST_YEAR = CONTENTS.lastYear;
+
+    // julian day of 1 Farvardin of FIRST_YEAR
+    private static final int FIRST_NOWRUZ_JD = CONTENTS.firstNowruzJd;
+
+    // bit (year - FIRST_YEAR) is set if that year has 366 days
+    private static final long[] LEAP_BITS = CONTENTS.leapBits;
+
+    // NOWRUZ_JD[year - FIRST_YEAR], last element is Nowruz of LAST_YEAR + 1 which marks the end of LAST_YEAR
+    private static final int[] NOWRUZ_JD = expand(CONTENTS);
+
+    /*
+        days are grouped in buckets of 256 days, each bucket keeps the index of the year that its first day belongs
+        to. a bucket is shorter than a year so at most one Nowruz is inside it and finding the year of a day needs
+        one more comparison.
+     */
+    private static final int BUCKET_SHIFT = 8;
+    private static final short[] BUCKET_YEAR_INDEX = buckets(NOWRUZ_JD);
+
+    private NowruzTable()
+    {
+    }
+
+    /*
+        layout of the resource, all values are big endian: MAGIC, VERSION, first year, last year, julian day of
+        Nowruz of first year and then (lastYear - firstYear + 64) / 64 longs of leap-year bitmap.
+     */
+    private static final class Contents
+    {
+        private final int firstYear;
+        private final int lastYear;
+        private final int firstNowruzJd;
+        private final long[] leapBits;
+
+        private Contents(int firstYear, int lastYear, int firstNowruzJd, long[] leapBits)
+        {
+            this.firstYear = firstYear;
+            this.lastYear = lastYear;
+            this.firstNowruzJd = firstNowruzJd;
+            this.leapBits = leapBits;
+        }
+
+        private static Contents read()
+        {
+            InputStream inputStream = NowruzTable.class.getResourceAsStream(RESOURCE_NAME);
+            if (inputStream != null)
+            {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream)))
+                {
+                    if (in.readInt() == MAGIC && in.readInt() == VERSION)
+                    {
+                        int firstYear = in.readInt();
+                        int lastYear = in.readInt();
+                        int firstNowruzJd = in.readInt();
+                        long[] leapBits = new long[(lastYear - firstYear + 64) / 64];
+                        for (int i = 0; i < leapBits.length; i++)
+                            leapBits[i] = in.readLong();
+                        return new Contents(firstYear, lastYear, firstNowruzJd, leapBits);
+                    }
+                } catch (IOException e)
+                {
+                    // a broken resource is the same as a missing one
+                }
+            }
+            // empty table, LAST_YEAR is before FIRST_YEAR so no year is covered
+            return new Contents(1, 0, 0, new long[0]);
+        }
+    }
+
+    /*
+        expand and buckets run while this class is initialized, static fields are slow to read from interpreted code
+        at that time, so loops only use parameters and local variables.
+     */
+    private static int[] expand(Contents contents)
+    {
+        long[] leapBits = contents.leapBits;
+        int[] table = new int[contents.lastYear - contents.firstYear + 2];
+        table[0] = contents.firstNowruzJd;
+        for (int i = 1; i < table.length; i++)
+        {
+            boolean leapYear = (leapBits[(i - 1) >> 6] & (1L << ((i - 1) & 63))) != 0;
+            table[i] = table[i - 1] + (leapYear ? 366 : 365);
+        }
+        return table;
+    }
+
+    private static short[] buckets(int[] nowruzJd)
+    {
+        int days = nowruzJd[nowruzJd.length - 1] - nowruzJd[0];
+        short[] buckets = new short[(days >> BUCKET_SHIFT) + 1];
+        int index = 0;
+        int lastIndex = nowruzJd.length - 2;
+        for (int i = 0; i < buckets.length; i++)
+        {
+            int jd = nowruzJd[0] + (i << BUCKET_SHIFT);
+            while (index < lastIndex && nowruzJd[index + 1] <= jd)
+                index++;
+            buckets[i] = (short) index;
+        }
+        return buckets;
+    }
+
+    /**
+     * checks whether Nowruz of provided year is available in the table.
+     *
+     * @param year jalali year
+     * @return true if year is between FIRST_YEAR and LAST_YEAR
+     */
+    static boolean covers(int year)
+    {
+        return year >= FIRST_YEAR && year <= LAST_YEAR;
+    }
+
+    /**
+     * checks whether provided julian day belongs to one of the years of the table.
+     *
+     * @param jd julian day
+     * @return true if jd is between Nowruz of FIRST_YEAR and the last day of LAST_YEAR
+     */
+    static boolean coversJd(long jd)
+    {
+        return jd >= NOWRUZ_JD[0] && jd < NOWRUZ_JD[NOWRUZ_JD.length - 1];
+    }
+
+    /**
+     * @param year a year that is covered by the table
+     * @return true if the year has 366 days
+     */
+    static boolean isLeapYear(int year)
+    {
+        int index = year - FIRST_YEAR;
+        return (LEAP_BITS[index >> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * @param year a year that is covered by the table
+     * @return julian day of 1 Farvardin of the year
+     */
+    static int nowruzJd(int year)
+    {
+        return NOWRUZ_JD[year - FIRST_YEAR];
+    }
+
+    /**
+     * finds jalali year of the provided julian day, its bucket gives the year of the bucket's first day and then
+     * it is compared with the next Nowruz.
+     *
+     * @param jd a julian day that is covered by the table
+     * @return jalali year that contains jd
+     */
+    static int yearOfJd(int jd)
+    {
+        int index = BUCKET_YEAR_INDEX[(jd - FIRST_NOWRUZ_JD) >> BUCKET_SHIFT];
+        if (NOWRUZ_JD[index + 1] <= jd)
+            index++;
+
+        return index + FIRST_YEAR;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.eloyzone.jalalicalendar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * This class calculates Nowruz of a range of jalali years with DateConverter's astronomical code and writes the
+ * resource that {@link NowruzTable} reads.
+ * <p>
+ * It's run by maven in process-classes phase (see pom.xml) by the java launcher, after classes are compiled and
+ * before they are tested or packaged, so the resource is part of the jar and a JVM never calculates these years
+ * itself.
+ * <pre>
+ * java com.github.eloyzone.jalalicalendar.NowruzTableGenerator &lt;classes directory&gt; &lt;first year&gt; &lt;last year&gt;
+ * </pre>
+ * This class is a build tool and is not used by the library at runtime, so it's not public and it's left out of the
+ * jar (see maven-jar-plugin in pom.xml).
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ * @see NowruzTable
+ */
+final class NowruzTableGenerator
+{
+    private NowruzTableGenerator()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 3)
+            throw new IllegalArgumentException("Usage: NowruzTableGenerator <classes directory> <first year> <last year>");
+
+        int firstYear = Integer.parseInt(args[1]);
+        int lastYear = Integer.parseInt(args[2]);
+        if (firstYear <= 0 || lastYear < firstYear || lastYear - firstYear >= Short.MAX_VALUE)
+            throw new IllegalArgumentException("Wrong range of years, it must be positive and less than " + Short.MAX_VALUE + " years");
+
+        File packageDirectory = new File(args[0], NowruzTable.class.getPackage().getName().replace('.', File.separatorChar));
+        if (!packageDirectory.isDirectory() && !packageDirectory.mkdirs())
+            throw new IOException("Can not create " + packageDirectory);
+
+        File file = new File(packageDirectory, NowruzTable.RESOURCE_NAME);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+        {
+            write(out, firstYear, lastYear);
+        }
+    }
+
+    static void write(DataOutputStream out, int firstYear, int lastYear) throws IOException
+    {
+        long[] leapBits = new long[(lastYear - firstYear + 64) / 64];
+
+        int firstNowruzJd = DateConverter.astronomicalNowruzJd(firstYear);
+        int nowruzJd = firstNowruzJd;
+        for (int year = firstYear; year <= lastYear; year++)
+        {
+            int nextNowruzJd = DateConverter.astronomicalNowruzJd(year + 1);
+            int lengthOfYear = nextNowruzJd - nowruzJd;
+            if (lengthOfYear != 365 && lengthOfYear != 366)
+                throw new IllegalStateException("Year " + year + " has " + lengthOfYear + " days");
+
+            if (lengthOfYear == 366)
+                leapBits[(year - firstYear) >> 6] |= 1L << ((year - firstYear) & 63);
+            nowruzJd = nextNowruzJd;
+        }
+
+        out.writeInt(NowruzTable.MAGIC);
+        out.writeInt(NowruzTable.VERSION);
+        out.writeInt(firstYear);
+        out.writeInt(lastYear);
+        out.writeInt(firstNowruzJd);
+        for (long bits : leapBits)
+            out.writeLong(bits);
+    }
+}
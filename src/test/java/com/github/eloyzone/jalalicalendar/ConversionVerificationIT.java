@@ -0,0 +1,245 @@
+package com.github.eloyzone.jalalicalendar;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Integration test that converts every day from 1 CE to 3000 CE by the reference, which is Nowruz of each year by
+ * {@link NowruzOracle}, a copy of the first astronomy of the library that shares no code with it, and by every fast
+ * path of the library. Chunks of days are verified in parallel by all cores and the first mismatch of each path and
+ * the total throughput are reported. The oracle itself is checked against Nowruz dates that are published by the
+ * calendar center of Iran.
+ * <p>
+ * It's run by maven-failsafe-plugin in integration-test phase, {@code mvn verify}. Throughput is a part of the
+ * failure message and is written to the file of {@code verification.report} system property, which failsafe sets to
+ * {@code target/failsafe-reports/ConversionVerificationIT-throughput.txt}.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+public class ConversionVerificationIT
+{
+    private static final long FIRST_EPOCH_DAY = LocalDate.of(1, 1, 1).toEpochDay();
+    private static final long END_EPOCH_DAY = LocalDate.of(3001, 1, 1).toEpochDay();
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    // jalali years of the range, from the year before 1 CE to the year after 3000 CE
+    private static final int FIRST_YEAR = -622;
+    private static final int LAST_YEAR = 2381;
+
+    // gregorian dates of 1 Farvardin of jalali years, from the official calendar
+    private static final int[][] KNOWN_NOWRUZ = {
+            {1395, 2016, 3, 20}, {1396, 2017, 3, 21}, {1397, 2018, 3, 21}, {1398, 2019, 3, 21},
+            {1399, 2020, 3, 20}, {1400, 2021, 3, 21}, {1401, 2022, 3, 21}, {1402, 2023, 3, 21},
+            {1403, 2024, 3, 20}, {1404, 2025, 3, 21}
+    };
+
+    private static int[] referenceNowruzJd;
+    private static Path mappedTableFile;
+    private static MappedDateTable mappedTable;
+
+    @BeforeClass
+    public static void calculateReference() throws Exception
+    {
+        NowruzOracle nowruzOracle = new NowruzOracle();
+        referenceNowruzJd = IntStream.rangeClosed(FIRST_YEAR, LAST_YEAR).parallel()
+                .map(nowruzOracle::nowruzJd).toArray();
+
+        mappedTableFile = Files.createTempFile("jalali-dates", ".bin");
+        MappedDateTable.write(mappedTableFile, 1, LAST_YEAR);
+        mappedTable = MappedDateTable.open(mappedTableFile);
+    }
+
+    @AfterClass
+    public static void deleteMappedTable() throws Exception
+    {
+        Files.deleteIfExists(mappedTableFile);
+    }
+
+    // packed date of an epoch day by the reference Nowruz of years
+    private static int referencePacked(long epochDay)
+    {
+        long jd = epochDay + 2440587;
+        int index = Arrays.binarySearch(referenceNowruzJd, (int) jd);
+        if (index < 0)
+            index = -index - 2;
+
+        int dayOfYear = (int) (jd - referenceNowruzJd[index]);
+        int month = (dayOfYear < 186) ? (dayOfYear / 31) + 1 : ((dayOfYear - 6) / 30) + 1;
+        int day = dayOfYear - ((month <= 7) ? (month - 1) * 31 : ((month - 1) * 30) + 6) + 1;
+        return JalaliDate.pack(FIRST_YEAR + index, month, day);
+    }
+
+    @Test
+    public void knownNowruzDates()
+    {
+        for (int[] known : KNOWN_NOWRUZ)
+        {
+            long epochDay = LocalDate.of(known[1], known[2], known[3]).toEpochDay();
+            assertEquals("Reference Nowruz of " + known[0] + " is wrong", epochDay, referenceNowruzJd[known[0] - FIRST_YEAR] - 2440587L);
+            assertEquals("Nowruz of " + known[0] + " is wrong", epochDay, DateConverter.nowruzEpochDay(known[0]));
+        }
+    }
+
+    @Test(timeout = 10 * 60 * 1000)
+    public void nowruzOfEveryYear()
+    {
+        // the table and both astronomies that calculate years out of it, the full one also generates the table
+        String[] paths = {"NowruzTable", "astronomicalNowruzJd", "fast astronomicalNowruzJd", "nowruzEpochDay"};
+        int[] firstMismatch = new int[paths.length];
+        Arrays.fill(firstMismatch, Integer.MAX_VALUE);
+
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++)
+        {
+            int nowruzJd = referenceNowruzJd[year - FIRST_YEAR];
+            if (NowruzTable.covers(year) && NowruzTable.nowruzJd(year) != nowruzJd)
+                firstMismatch[0] = Math.min(firstMismatch[0], year);
+            if (DateConverter.astronomicalNowruzJd(year, false) != nowruzJd)
+                firstMismatch[1] = Math.min(firstMismatch[1], year);
+            if (DateConverter.astronomicalNowruzJd(year, true) != nowruzJd)
+                firstMismatch[2] = Math.min(firstMismatch[2], year);
+            if (DateConverter.nowruzEpochDay(year) != nowruzJd - 2440587L)
+                firstMismatch[3] = Math.min(firstMismatch[3], year);
+        }
+
+        StringBuilder mismatches = new StringBuilder();
+        for (int i = 0; i < paths.length; i++)
+            if (firstMismatch[i] != Integer.MAX_VALUE)
+                mismatches.append("\n").append(paths[i]).append(": first mismatch at year ").append(firstMismatch[i]);
+        assertTrue("Nowruz does not match the reference" + mismatches, mismatches.length() == 0);
+    }
+
+    @Test(timeout = 10 * 60 * 1000)
+    public void everyDayOfEveryPath() throws IOException
+    {
+        int days = (int) (END_EPOCH_DAY - FIRST_EPOCH_DAY);
+        int chunks = (days + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        String[] paths = {"epochDayToJalaliPacked", "jalaliPackedToEpochDay", "ofEpochDay", "toEpochDay",
+                "gregorianToJalaliPacked", "jalaliToGregorian", "bulk gregorianToJalali", "bulk jalaliToGregorian",
+                "mapped table", "astronomical rules", "2820-year cycle", "33-year cycle", "parallel bulk gregorianToJalali"};
+        AtomicLong[] firstMismatch = new AtomicLong[paths.length];
+        for (int i = 0; i < paths.length; i++)
+            firstMismatch[i] = new AtomicLong(Long.MAX_VALUE);
+
+        DateConverter mappedConverter = DateConverter.shared().withMappedTable(mappedTable);
+        JalaliCalendarRules[] rules = {JalaliCalendarRules.astronomical(), JalaliCalendarRules.cycle2820(),
+                JalaliCalendarRules.cycle33()};
+        DateConverter[] rulesConverters = new DateConverter[rules.length];
+        for (int r = 0; r < rules.length; r++)
+            rulesConverters[r] = DateConverter.shared().withRules(rules[r]);
+
+        long start = System.nanoTime();
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            long from = FIRST_EPOCH_DAY + (long) chunk * CHUNK_SIZE;
+            int length = (int) Math.min(CHUNK_SIZE, END_EPOCH_DAY - from);
+
+            long[] epochDays = new long[length];
+            int[] expected = new int[length];
+            for (int i = 0; i < length; i++)
+            {
+                epochDays[i] = from + i;
+                expected[i] = referencePacked(epochDays[i]);
+            }
+
+            int[] packedOut = new int[length];
+            long[] epochDaysOut = new long[length];
+            DateConverter.shared().gregorianToJalali(epochDays, packedOut, 0, length);
+            DateConverter.shared().jalaliToGregorian(expected, epochDaysOut, 0, length);
+
+            for (int i = 0; i < length; i++)
+            {
+                long epochDay = epochDays[i];
+                int packed = expected[i];
+                int year = JalaliDate.packedYear(packed);
+
+                check(firstMismatch[0], epochDay, DateConverter.epochDayToJalaliPacked(epochDay) == packed);
+                check(firstMismatch[1], epochDay, DateConverter.jalaliPackedToEpochDay(packed) == epochDay);
+
+                JalaliDate jalaliDate = DateConverter.shared().ofEpochDay(epochDay);
+                check(firstMismatch[2], epochDay, jalaliDate.toPacked() == packed);
+                check(firstMismatch[3], epochDay, jalaliDate.toEpochDay() == epochDay);
+
+                LocalDate localDate = LocalDate.ofEpochDay(epochDay);
+                check(firstMismatch[4], epochDay, DateConverter.gregorianToJalaliPacked(localDate.getYear(),
+                        localDate.getMonthValue(), localDate.getDayOfMonth()) == packed);
+                if (year >= 0)
+                    check(firstMismatch[5], epochDay, DateConverter.shared().jalaliToGregorian(jalaliDate).equals(localDate));
+
+                check(firstMismatch[6], epochDay, packedOut[i] == packed);
+                check(firstMismatch[7], epochDay, epochDaysOut[i] == epochDay);
+
+                if (mappedTable.coversEpochDay(epochDay))
+                    check(firstMismatch[8], epochDay, mappedConverter.ofEpochDay(epochDay).toPacked() == packed);
+
+                for (int r = 0; r < rules.length; r++)
+                {
+                    if (year >= rules[r].getFirstVerifiedYear() && year <= rules[r].getLastVerifiedYear())
+                    {
+                        long nowruzEpochDay = referenceNowruzJd[year - FIRST_YEAR] - 2440587L;
+                        check(firstMismatch[9 + r], epochDay, rules[r].yearOfEpochDay(epochDay) == year
+                                && rules[r].nowruzEpochDay(year) == nowruzEpochDay
+                                && rulesConverters[r].ofEpochDay(epochDay).toPacked() == packed);
+                    }
+                }
+            }
+        });
+
+        // the whole range at once, so it's split by fork/join tasks of the library
+        long[] allEpochDays = new long[days];
+        for (int i = 0; i < days; i++)
+            allEpochDays[i] = FIRST_EPOCH_DAY + i;
+        int[] allPacked = new int[days];
+        DateConverter.shared().parallelGregorianToJalali(allEpochDays, allPacked, 0, days);
+        for (int i = 0; i < days; i++)
+            if (allPacked[i] != referencePacked(allEpochDays[i]))
+            {
+                check(firstMismatch[12], allEpochDays[i], false);
+                break;
+            }
+        long elapsed = System.nanoTime() - start;
+
+        String throughput = "verified " + days + " days of " + paths.length + " paths in " + elapsed / 1_000_000
+                + " ms, " + (long) (days / (elapsed / 1e9)) + " days per second";
+        String report = System.getProperty("verification.report");
+        if (report != null)
+        {
+            Path reportFile = Paths.get(report);
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+            Files.write(reportFile, (throughput + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        StringBuilder mismatches = new StringBuilder();
+        for (int i = 0; i < paths.length; i++)
+        {
+            long epochDay = firstMismatch[i].get();
+            if (epochDay != Long.MAX_VALUE)
+            {
+                int packed = referencePacked(epochDay);
+                mismatches.append("\n").append(paths[i]).append(": first mismatch at ").append(LocalDate.ofEpochDay(epochDay))
+                        .append(", reference is ").append(JalaliDate.packedYear(packed)).append("-")
+                        .append(JalaliDate.packedMonth(packed)).append("-").append(JalaliDate.packedDay(packed));
+            }
+        }
+        assertTrue("Conversion paths do not match the reference, " + throughput + mismatches, mismatches.length() == 0);
+    }
+
+    private static void check(AtomicLong firstMismatch, long epochDay, boolean matches)
+    {
+        if (!matches)
+            firstMismatch.accumulateAndGet(epochDay, Math::min);
+    }
+}
@@ -1,8 +1,32 @@
 package com.github.eloyzone.jalalicalendar;
 
 import org.junit.Test;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParsePosition;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -81,6 +105,20 @@ public class LibTest
         assertFalse(errorMessageNonLeapYear, new JalaliDate(1281, 11, 28).isLeapYear());
     }
 
+    @Test
+    public void leapYearBitmap()
+    {
+        String errorMessage = "Leap year bitmap does not match length of year";
+
+        for (int year = 1; year <= NowruzTable.LAST_YEAR + 5; year++)
+        {
+            long lengthOfYear = new DateConverter().toEpochDay(year + 1, 1, 1) - new DateConverter().toEpochDay(year, 1, 1);
+            assertEquals(errorMessage, lengthOfYear == 366, JalaliDate.isLeapYear(year));
+            assertEquals(errorMessage, lengthOfYear == 366, DateConverter.isLeapYear(year));
+        }
+        assertTrue(errorMessage, new JalaliDate(1403, 12, 30).isLeapYear());
+    }
+
     @Test
     public void dayOfWeekPersian()
     {
@@ -95,6 +133,581 @@ public class LibTest
         assertEquals(errorMessage, new JalaliDate(1390, 9, 24).getDayOfWeek().getStringInEnglish(), DayOfWeekPersian.Panjshanbeh.getStringInEnglish());
     }
 
+    @Test
+    public void dayOfWeekOfEveryDay()
+    {
+        String errorMessage = "Day of week does not match with gregorian date";
+
+        // Yekshanbeh is sunday, the 7th day of ISO week
+        for (long epochDay = LocalDate.of(1900, 1, 1).toEpochDay(); epochDay < LocalDate.of(2100, 1, 1).toEpochDay(); epochDay++)
+        {
+            JalaliDate jalaliDate = DateConverter.shared().ofEpochDay(epochDay);
+            JalaliDate sameDate = new JalaliDate(jalaliDate.getYear(), jalaliDate.getMonthPersian().getValue(), jalaliDate.getDay());
+            int isoDayOfWeek = LocalDate.ofEpochDay(epochDay).getDayOfWeek().getValue();
+
+            assertEquals(errorMessage, isoDayOfWeek % 7, sameDate.getDayOfWeek().getValue());
+            assertEquals(errorMessage, jalaliDate, sameDate);
+            assertEquals(errorMessage, epochDay, sameDate.toEpochDay());
+        }
+        assertEquals(errorMessage, DayOfWeekPersian.Yekshanbeh, new JalaliDate(1397, 12, 26).getDayOfWeek());
+    }
+
+    @Test
+    public void nowruzTableBoundaries()
+    {
+        String errorMessage = "Precomputed Nowruz table and astronomical calculation do not agree";
+
+        // last year of the table is followed by the first year that is calculated astronomically
+        int daysOfEsfand = new JalaliDate(NowruzTable.LAST_YEAR, 1, 1).isLeapYear() ? 30 : 29;
+        LocalDate firstDayOfEsfand = new DateConverter().jalaliToGregorian(NowruzTable.LAST_YEAR, 12, 1);
+        LocalDate firstDayAfterTable = new DateConverter().jalaliToGregorian(NowruzTable.LAST_YEAR + 1, 1, 1);
+        assertEquals(errorMessage, firstDayOfEsfand.plusDays(daysOfEsfand), firstDayAfterTable);
+
+        assertEquals(errorMessage, new JalaliDate(NowruzTable.LAST_YEAR + 1, 1, 1), new DateConverter().gregorianToJalali(
+                firstDayAfterTable.getYear(), firstDayAfterTable.getMonthValue(), firstDayAfterTable.getDayOfMonth()));
+        assertEquals(errorMessage, new JalaliDate(1, 1, 1), new DateConverter().gregorianToJalali(622, 3, 22));
+    }
+
+    @Test
+    public void generatedNowruzTable()
+    {
+        String errorMessage = "Nowruz table that is generated by the build does not match astronomical calculation";
+
+        // the resource is written by maven in process-classes phase, before tests run. without it the table is empty
+        // and every year is calculated, so a build that does not write it must fail here
+        assertNotNull("Nowruz table resource is missing", NowruzTable.class.getResource(NowruzTable.RESOURCE_NAME));
+        assertEquals(errorMessage, 1, NowruzTable.FIRST_YEAR);
+        assertEquals(errorMessage, 9999, NowruzTable.LAST_YEAR);
+
+        for (int year = NowruzTable.FIRST_YEAR; year <= NowruzTable.LAST_YEAR; year += 37)
+            assertEquals(errorMessage, DateConverter.astronomicalNowruzJd(year), NowruzTable.nowruzJd(year));
+        assertEquals(errorMessage, DateConverter.astronomicalNowruzJd(NowruzTable.LAST_YEAR), NowruzTable.nowruzJd(NowruzTable.LAST_YEAR));
+    }
+
+    @Test
+    public void fastAstronomy()
+    {
+        String errorMessage = "Fast astronomy does not give the same day as full series";
+
+        // every year, the day of vernal equinox in Tehran is the same with fewer terms of series
+        for (int year = 1; year <= 4000; year++)
+            assertEquals(errorMessage + " " + year, DateConverter.tehranEquinoxJd(year, false), DateConverter.tehranEquinoxJd(year, true), 0);
+
+        for (int year = NowruzTable.LAST_YEAR - 100; year <= NowruzTable.LAST_YEAR + 100; year++)
+            assertEquals(errorMessage + " " + year, DateConverter.astronomicalNowruzJd(year, false), DateConverter.astronomicalNowruzJd(year, true));
+    }
+
+    @Test
+    public void yearsOutsideNowruzTable() throws Exception
+    {
+        String errorMessage = "Dates outside of Nowruz table are not converted properly";
+
+        // years after the table are calculated once by all threads at the same time, then every day round trips
+        long firstEpochDay = DateConverter.shared().toEpochDay(NowruzTable.LAST_YEAR + 1, 1, 1);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++)
+        {
+            futures.add(executorService.submit(() -> {
+                for (long epochDay = firstEpochDay - 400; epochDay < firstEpochDay + 50 * 366; epochDay++)
+                {
+                    JalaliDate jalaliDate = DateConverter.shared().ofEpochDay(epochDay);
+                    if (jalaliDate.toEpochDay() != epochDay || jalaliDate.getDay() > (jalaliDate.getMonthPersian().getValue() <= 6 ? 31 : 30))
+                        return false;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures)
+            assertTrue(errorMessage, future.get());
+        executorService.shutdown();
+
+        assertEquals(errorMessage, new JalaliDate(NowruzTable.LAST_YEAR + 1, 1, 1), DateConverter.shared().ofEpochDay(firstEpochDay));
+        int year = NowruzTable.LAST_YEAR + 10;
+        assertEquals(errorMessage, DateConverter.shared().toEpochDay(year + 1, 1, 1) - DateConverter.shared().toEpochDay(year, 1, 1),
+                JalaliDate.isLeapYear(year) ? 366 : 365);
+    }
+
+    @Test
+    public void sharedConverterAcrossThreads() throws Exception
+    {
+        String errorMessage = "Shared converter gives different results when it is reused";
+
+        // reusing one instance used to shift results by the day of previous conversion
+        DateConverter dateConverter = DateConverter.shared();
+        assertEquals(errorMessage, new JalaliDate(1370, 11, 28), dateConverter.gregorianToJalali(1992, 2, 17));
+        assertEquals(errorMessage, new JalaliDate(1370, 11, 28), dateConverter.gregorianToJalali(1992, 2, 17));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+        {
+            final long firstEpochDay = LocalDate.of(1950 + t * 20, 1, 1).toEpochDay();
+            results.add(executorService.submit(() ->
+            {
+                for (long epochDay = firstEpochDay; epochDay < firstEpochDay + 20 * 366; epochDay++)
+                {
+                    LocalDate localDate = LocalDate.ofEpochDay(epochDay);
+                    JalaliDate jalaliDate = DateConverter.shared().gregorianToJalali(localDate.getYear(), localDate.getMonthValue(), localDate.getDayOfMonth());
+                    if (!DateConverter.shared().jalaliToGregorian(jalaliDate).equals(localDate))
+                        return false;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> result : results)
+            assertTrue(errorMessage, result.get());
+        executorService.shutdown();
+    }
+
+    @Test
+    public void conversionDoesNotAllocate()
+    {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        DateConverter dateConverter = DateConverter.shared();
+        int[] result = new int[3];
+        int conversions = 100_000;
+
+        // warm up so class initialization and table creation are not counted
+        dateConverter.gregorianToJalali(2019, 3, 20, result);
+        dateConverter.gregorianToJalali(2019, 3, 20).getDayOfWeek();
+        threadMXBean.getThreadAllocatedBytes(threadId);
+
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        long checksum = 0;
+        for (int i = 0; i < conversions; i++)
+        {
+            dateConverter.gregorianToJalali(2000, 1, 1 + i % 5000, result);
+            checksum += result[2] + dateConverter.toEpochDay(result[0], result[1], result[2]);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        assertEquals("Primitive conversion must not allocate (checksum " + checksum + ")", 0, allocated / conversions);
+
+        before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < conversions; i++)
+            checksum += dateConverter.gregorianToJalali(2000, 1, 1 + i % 5000).getDayOfWeek().getValue();
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        // nothing but the returned JalaliDate, which is far smaller than 64 bytes
+        assertTrue("Conversion allocates more than the returned date (checksum " + checksum + ")", allocated / conversions < 64);
+
+        // years outside of the table are calculated astronomically, which does not create arrays either
+        checksum += DateConverter.astronomicalNowruzJd(NowruzTable.LAST_YEAR + 1, false);
+        before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++)
+            checksum += DateConverter.astronomicalNowruzJd(NowruzTable.LAST_YEAR + 1 + i, i % 2 == 0);
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        assertEquals("Astronomical calculation must not allocate (checksum " + checksum + ")", 0, allocated / 100);
+    }
+
+    @Test
+    public void calendarRules()
+    {
+        String errorMessage = "Calendar rules do not convert properly";
+
+        DateConverter astronomical = DateConverter.shared();
+        assertSame(errorMessage, JalaliCalendarRules.astronomical(), astronomical.getRules());
+
+        for (JalaliCalendarRules rules : Arrays.asList(JalaliCalendarRules.cycle2820(), JalaliCalendarRules.cycle33()))
+        {
+            DateConverter dateConverter = DateConverter.shared().withRules(rules);
+
+            // every day of verified years is the same as astronomical rule, years right before and after are not
+            int firstYear = rules.getFirstVerifiedYear();
+            int lastYear = rules.getLastVerifiedYear();
+            for (long epochDay = astronomical.toEpochDay(firstYear, 1, 1); epochDay < astronomical.toEpochDay(lastYear + 1, 1, 1); epochDay++)
+            {
+                assertEquals(errorMessage + " " + rules, astronomical.ofEpochDay(epochDay), dateConverter.ofEpochDay(epochDay));
+            }
+            assertNotEquals(errorMessage + " " + rules, rules.isLeapYear(firstYear - 1), JalaliDate.isLeapYear(firstYear - 1));
+            assertNotEquals(errorMessage + " " + rules, rules.isLeapYear(lastYear + 1), JalaliDate.isLeapYear(lastYear + 1));
+
+            // outside of verified years the rules are still a calendar, every day round trips
+            for (int year = 1; year <= 4000; year++)
+            {
+                long nowruz = rules.nowruzEpochDay(year);
+                long lengthOfYear = rules.nowruzEpochDay(year + 1) - nowruz;
+                assertEquals(errorMessage + " " + rules + " " + year, lengthOfYear == 366, rules.isLeapYear(year));
+                assertTrue(errorMessage + " " + rules + " " + year, lengthOfYear == 365 || lengthOfYear == 366);
+                assertEquals(errorMessage + " " + rules + " " + year, year, rules.yearOfEpochDay(nowruz));
+                assertEquals(errorMessage + " " + rules + " " + year, year, rules.yearOfEpochDay(nowruz + lengthOfYear - 1));
+            }
+
+            // but converter does not create dates of those years, as JalaliDate would not agree with them
+            assertConversionFails(errorMessage + " " + rules, () -> dateConverter.ofEpochDay(rules.nowruzEpochDay(firstYear) - 1));
+            assertConversionFails(errorMessage + " " + rules, () -> dateConverter.ofEpochDay(rules.nowruzEpochDay(lastYear + 1)));
+            assertConversionFails(errorMessage + " " + rules, () -> dateConverter.toEpochDay(lastYear + 1, 1, 1));
+            assertConversionFails(errorMessage + " " + rules, () -> dateConverter.jalaliToGregorian(firstYear - 1, 12, 29));
+            assertConversionFails(errorMessage + " " + rules, () -> dateConverter.gregorianToJalali(
+                    new long[]{rules.nowruzEpochDay(lastYear + 1)}, new int[1], 0, 1));
+        }
+    }
+
+    private static void assertConversionFails(String errorMessage, Runnable conversion)
+    {
+        try
+        {
+            conversion.run();
+            fail(errorMessage);
+        } catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void cacheIsNotSharedByRules()
+    {
+        String errorMessage = "Converters of different rules share results of a cache";
+
+        ConversionCache cache = new ConversionCache(64);
+        DateConverter astronomical = DateConverter.shared().withCache(cache);
+        DateConverter cycle33 = astronomical.withRules(JalaliCalendarRules.cycle33());
+        assertSame(errorMessage, cache, astronomical.withRules(JalaliCalendarRules.astronomical()).getCache());
+        assertNull(errorMessage, cycle33.getCache());
+
+        // 1473 is the first year after verified years of 33-year cycle, it ends on another day than astronomical rule
+        long epochDay = DateConverter.shared().toEpochDay(1474, 1, 1) - 1;
+        assertNotEquals(errorMessage, epochDay + 1, JalaliCalendarRules.cycle33().nowruzEpochDay(1474));
+        JalaliDate astronomicalDate = astronomical.ofEpochDay(epochDay);
+        assertSame(errorMessage, astronomicalDate, astronomical.ofEpochDay(epochDay));
+        assertEquals(errorMessage, 1473, astronomicalDate.getYear());
+        assertEquals(errorMessage, MonthPersian.ESFAND, astronomicalDate.getMonthPersian());
+        assertConversionFails(errorMessage, () -> cycle33.ofEpochDay(epochDay));
+
+        // a converter of other rules does not use a cache even if it's given one
+        DateConverter cachedCycle33 = cycle33.withCache(cache);
+        assertConversionFails(errorMessage, () -> cachedCycle33.ofEpochDay(epochDay));
+        assertConversionFails(errorMessage, () -> cachedCycle33.jalaliToGregorian(1473, 12, astronomicalDate.getDay()));
+        long verifiedEpochDay = DateConverter.shared().toEpochDay(1400, 1, 1);
+        assertEquals(errorMessage, astronomical.ofEpochDay(verifiedEpochDay), cachedCycle33.ofEpochDay(verifiedEpochDay));
+        assertNotSame(errorMessage, cachedCycle33.ofEpochDay(verifiedEpochDay), cachedCycle33.ofEpochDay(verifiedEpochDay));
+    }
+
+    @Test
+    public void pooledConversion()
+    {
+        String errorMessage = "Pooled conversion does not return shared dates";
+
+        JalaliDatePool pool = new JalaliDatePool(1390, 1420);
+        DateConverter dateConverter = DateConverter.shared().withPool(pool);
+        assertEquals(errorMessage, DateConverter.shared().toEpochDay(1421, 1, 1) - DateConverter.shared().toEpochDay(1390, 1, 1), pool.size());
+
+        JalaliDate first = dateConverter.gregorianToJalali(2019, 3, 21);
+        assertSame(errorMessage, first, dateConverter.gregorianToJalali(2019, 3, 21));
+        assertSame(errorMessage, first, pool.intern(new JalaliDate(1398, 1, 1)));
+        assertEquals(errorMessage, new JalaliDate(1398, 1, 1), first);
+        assertNotSame(errorMessage, dateConverter.gregorianToJalali(1992, 2, 17), dateConverter.gregorianToJalali(1992, 2, 17));
+        assertNull(errorMessage, pool.get(DateConverter.shared().toEpochDay(1421, 1, 1)));
+
+        for (long epochDay = DateConverter.shared().toEpochDay(1389, 12, 1); epochDay < DateConverter.shared().toEpochDay(1421, 2, 1); epochDay++)
+            assertEquals(errorMessage, DateConverter.shared().ofEpochDay(epochDay), dateConverter.ofEpochDay(epochDay));
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int conversions = 100_000;
+        long checksum = 0;
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < conversions; i++)
+            checksum += dateConverter.gregorianToJalali(2019, 3, 21 + i % 5000).getDay();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        assertEquals("Pooled conversion must not allocate (checksum " + checksum + ")", 0, allocated / conversions);
+    }
+
+    @Test
+    public void poolWindowAtMaxYear()
+    {
+        String errorMessage = "Pool window at the last supported year is not correct";
+
+        JalaliDatePool pool = new JalaliDatePool(JalaliDate.MAX_YEAR - 1, JalaliDate.MAX_YEAR - 1);
+        assertEquals(errorMessage, DateConverter.shared().toEpochDay(JalaliDate.MAX_YEAR, 1, 1)
+                - DateConverter.shared().toEpochDay(JalaliDate.MAX_YEAR - 1, 1, 1), pool.size());
+
+        try
+        {
+            new JalaliDatePool(JalaliDate.MAX_YEAR - 1, JalaliDate.MAX_YEAR);
+            fail(errorMessage);
+        } catch (IllegalArgumentException e)
+        {
+            assertTrue(errorMessage, e.getMessage().contains("window ends at nowruz of next year"));
+        }
+    }
+
+    @Test
+    public void cachedConversionOfLenientValues()
+    {
+        String errorMessage = "Cached conversion of lenient values is not the same as uncached conversion";
+
+        DateConverter dateConverter = new DateConverter();
+        DateConverter cachedDateConverter = new DateConverter().withCache(new ConversionCache(64));
+
+        assertEquals(errorMessage, LocalDate.of(2021, 2, 22), dateConverter.jalaliToGregorian(1400, 0, 5));
+        assertEquals(errorMessage, dateConverter.jalaliToGregorian(1400, 0, 5), cachedDateConverter.jalaliToGregorian(1400, 0, 5));
+        assertEquals(errorMessage, LocalDate.of(2021, 3, 20), dateConverter.jalaliToGregorian(1400, 1, 0));
+        assertEquals(errorMessage, dateConverter.jalaliToGregorian(1400, 1, 0), cachedDateConverter.jalaliToGregorian(1400, 1, 0));
+        assertEquals(errorMessage, dateConverter.jalaliToGregorian(1400, 0, 0), cachedDateConverter.jalaliToGregorian(1400, 0, 0));
+    }
+
+    @Test
+    public void cachedConversion() throws Exception
+    {
+        String errorMessage = "Cached conversion is not correct";
+
+        ConversionCache cache = new ConversionCache(1000);
+        assertEquals(errorMessage, 1024, cache.getCapacity());
+        DateConverter dateConverter = DateConverter.shared().withCache(cache);
+
+        JalaliDate first = dateConverter.gregorianToJalali(1992, 2, 17);
+        assertSame(errorMessage, first, dateConverter.gregorianToJalali(1992, 2, 17));
+        assertSame(errorMessage, dateConverter.jalaliToGregorian(1370, 11, 28), dateConverter.jalaliToGregorian(first));
+        assertEquals(errorMessage, 2, cache.getHitCount());
+        assertEquals(errorMessage, 2, cache.getMissCount());
+        assertEquals(errorMessage, DateConverter.shared().jalaliToGregorian(1371, 1, 1), dateConverter.jalaliToGregorian(1370, 13, 1));
+
+        // many more distinct dates than capacity, shared by threads
+        long firstEpochDay = LocalDate.of(1900, 1, 1).toEpochDay();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++)
+        {
+            int seed = thread;
+            futures.add(executorService.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 20_000; i++)
+                {
+                    long epochDay = firstEpochDay + random.nextInt(i % 2 == 0 ? 100 : 50_000);
+                    JalaliDate jalaliDate = dateConverter.ofEpochDay(epochDay);
+                    if (!jalaliDate.equals(DateConverter.shared().ofEpochDay(epochDay)))
+                        return false;
+                    if (dateConverter.jalaliToGregorian(jalaliDate).toEpochDay() != epochDay)
+                        return false;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures)
+            assertTrue(errorMessage, future.get());
+        executorService.shutdown();
+
+        assertTrue(errorMessage, cache.getEvictionCount() > 0);
+        assertTrue(errorMessage, cache.getHitCount() > 8 * 20_000 / 2);
+        assertEquals(errorMessage, 2 + 2 + 2 * 8 * 20_000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    public void mappedDateTable() throws Exception
+    {
+        String errorMessage = "Dates of mapped table are not correct";
+
+        Path file = Files.createTempFile("jalali-dates", ".bin");
+        try
+        {
+            MappedDateTable.write(file, 1390, 1420);
+            MappedDateTable mappedTable = MappedDateTable.open(file);
+            DateConverter dateConverter = DateConverter.shared().withMappedTable(mappedTable);
+
+            long firstEpochDay = DateConverter.shared().toEpochDay(1389, 12, 1);
+            long lastEpochDay = DateConverter.shared().toEpochDay(1421, 2, 1);
+            long[] epochDays = new long[(int) (lastEpochDay - firstEpochDay)];
+            for (int i = 0; i < epochDays.length; i++)
+            {
+                long epochDay = firstEpochDay + i;
+                epochDays[i] = epochDay;
+                JalaliDate jalaliDate = dateConverter.ofEpochDay(epochDay);
+                assertEquals(errorMessage, DateConverter.shared().ofEpochDay(epochDay), jalaliDate);
+                assertEquals(errorMessage, epochDay, dateConverter.jalaliToGregorian(jalaliDate).toEpochDay());
+            }
+            assertTrue(errorMessage, mappedTable.coversYear(1420) && !mappedTable.coversYear(1421));
+            assertEquals(errorMessage, DateConverter.shared().jalaliToGregorian(1398, 13, 1), dateConverter.jalaliToGregorian(1398, 13, 1));
+
+            int[] packedDates = new int[epochDays.length];
+            long[] convertedBack = new long[epochDays.length];
+            dateConverter.gregorianToJalali(epochDays, packedDates, 0, epochDays.length);
+            dateConverter.jalaliToGregorian(packedDates, convertedBack, 0, epochDays.length);
+            assertArrayEquals(errorMessage, epochDays, convertedBack);
+
+            // a changed byte is found by checksum
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(file, bytes);
+            try
+            {
+                MappedDateTable.open(file);
+                fail(errorMessage);
+            } catch (IOException e)
+            {
+                assertTrue(errorMessage, e.getMessage().contains("checksum"));
+            }
+        } finally
+        {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void mappedDateTableAtMaxYear() throws Exception
+    {
+        String errorMessage = "Mapped table at the last supported year is not correct";
+
+        Path directory = Files.createTempDirectory("jalali-dates");
+        Path file = directory.resolve("dates.bin");
+        try
+        {
+            try
+            {
+                MappedDateTable.main(new String[]{file.toString(), String.valueOf(JalaliDate.MAX_YEAR - 1), String.valueOf(JalaliDate.MAX_YEAR)});
+                fail(errorMessage);
+            } catch (IllegalArgumentException e)
+            {
+                assertTrue(errorMessage, e.getMessage().contains("table keeps nowruz of next year"));
+            }
+            try (Stream<Path> files = Files.list(directory))
+            {
+                assertEquals(errorMessage, 0, files.count());
+            }
+
+            MappedDateTable.write(file, JalaliDate.MAX_YEAR - 1, JalaliDate.MAX_YEAR - 1);
+            MappedDateTable mappedTable = MappedDateTable.open(file);
+            assertTrue(errorMessage, mappedTable.coversYear(JalaliDate.MAX_YEAR - 1) && !mappedTable.coversYear(JalaliDate.MAX_YEAR));
+        } finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void packedDates()
+    {
+        String errorMessage = "Packed jalali date is not converted properly";
+
+        int packed = DateConverter.gregorianToJalaliPacked(1992, 2, 17);
+        assertEquals(errorMessage, 1370, JalaliDate.packedYear(packed));
+        assertEquals(errorMessage, 11, JalaliDate.packedMonth(packed));
+        assertEquals(errorMessage, 28, JalaliDate.packedDay(packed));
+        assertEquals(errorMessage, new JalaliDate(1370, 11, 28), JalaliDate.fromPacked(packed));
+        assertEquals(errorMessage, packed, new JalaliDate(1370, 11, 28).toPacked());
+        assertEquals(errorMessage, LocalDate.of(1992, 2, 17).toEpochDay(), DateConverter.jalaliPackedToEpochDay(packed));
+
+        // packed dates keep the order of days
+        int previous = DateConverter.epochDayToJalaliPacked(LocalDate.of(2000, 1, 1).toEpochDay());
+        for (long epochDay = LocalDate.of(2000, 1, 2).toEpochDay(); epochDay < LocalDate.of(2030, 1, 1).toEpochDay(); epochDay++)
+        {
+            int current = DateConverter.epochDayToJalaliPacked(epochDay);
+            assertTrue(errorMessage, previous < current);
+            assertEquals(errorMessage, epochDay, DateConverter.jalaliPackedToEpochDay(current));
+            previous = current;
+        }
+    }
+
+    @Test
+    public void bulkConversion()
+    {
+        String errorMessage = "Bulk conversion does not match single conversion";
+
+        long firstEpochDay = LocalDate.of(1990, 1, 1).toEpochDay();
+        long[] epochDays = new long[20_000];
+        for (int i = 0; i < epochDays.length; i++)
+            epochDays[i] = (i % 3 == 0) ? firstEpochDay + i : firstEpochDay + (i * 7919L) % 40_000; // sorted and random parts
+
+        int[] packedDates = new int[epochDays.length];
+        long[] epochDaysBack = new long[epochDays.length];
+        DateConverter.shared().gregorianToJalali(epochDays, packedDates, 0, epochDays.length);
+        DateConverter.shared().jalaliToGregorian(packedDates, epochDaysBack, 0, epochDays.length);
+
+        for (int i = 0; i < epochDays.length; i++)
+        {
+            assertEquals(errorMessage, DateConverter.epochDayToJalaliPacked(epochDays[i]), packedDates[i]);
+            assertEquals(errorMessage, epochDays[i], epochDaysBack[i]);
+        }
+    }
+
+    @Test
+    public void parallelBulkConversion()
+    {
+        String errorMessage = "Parallel bulk conversion does not match sequential conversion";
+
+        long firstEpochDay = LocalDate.of(1900, 1, 1).toEpochDay();
+        long[] epochDays = new long[100_000];
+        IntBuffer epochDayBuffer = ByteBuffer.allocateDirect(epochDays.length * 4).asIntBuffer();
+        for (int i = 0; i < epochDays.length; i++)
+        {
+            epochDays[i] = firstEpochDay + (i * 7919L) % 60_000;
+            epochDayBuffer.put(i, (int) epochDays[i]);
+        }
+
+        int[] expected = new int[epochDays.length];
+        int[] packedDates = new int[epochDays.length];
+        IntBuffer packedBuffer = IntBuffer.allocate(epochDays.length + 10);
+        packedBuffer.position(10);
+
+        DateConverter.shared().gregorianToJalali(epochDays, expected, 0, epochDays.length);
+        DateConverter.shared().parallelGregorianToJalali(epochDays, packedDates, 0, epochDays.length, 1000);
+        DateConverter.shared().parallelGregorianToJalali(epochDayBuffer, packedBuffer, 1000);
+
+        assertArrayEquals(errorMessage, expected, packedDates);
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(errorMessage, expected[i], packedBuffer.get(i + 10));
+        assertEquals(errorMessage, 10, packedBuffer.position());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void bulkConversionIllegalRange()
+    {
+        DateConverter.shared().gregorianToJalali(new long[10], new int[5], 0, 10);
+    }
+
+    @Test
+    public void compareAndSortDates()
+    {
+        String errorMessage = "Jalali dates are not compared or sorted properly";
+
+        JalaliDate first = new JalaliDate(1370, 11, 28);
+        JalaliDate second = new JalaliDate(1370, 12, 1);
+        assertTrue(errorMessage, first.isBefore(second) && second.isAfter(first) && first.compareTo(second) < 0);
+        assertTrue(errorMessage, first.isEqual(DateConverter.shared().gregorianToJalali(1992, 2, 17)));
+        assertEquals(errorMessage, first.hashCode(), DateConverter.shared().gregorianToJalali(1992, 2, 17).hashCode());
+
+        Set<JalaliDate> set = new HashSet<>();
+        set.add(first);
+        assertTrue(errorMessage, set.contains(new JalaliDate(1370, 11, 28)));
+
+        Random random = new Random(1370);
+        JalaliDate[] dates = new JalaliDate[10_000];
+        int[] packedDates = new int[dates.length];
+        for (int i = 0; i < dates.length; i++)
+        {
+            dates[i] = DateConverter.shared().ofEpochDay(LocalDate.of(1900, 1, 1).toEpochDay() + random.nextInt(80_000));
+            packedDates[i] = dates[i].toPacked();
+        }
+
+        JalaliDate[] expected = dates.clone();
+        Arrays.sort(expected);
+        JalaliDateArrays.sort(dates);
+        assertArrayEquals(errorMessage, expected, dates);
+
+        JalaliDateArrays.sortPacked(packedDates);
+        for (int i = 0; i < dates.length; i++)
+            assertEquals(errorMessage, dates[i].toPacked(), packedDates[i]);
+    }
+
+    @Test
+    public void immutableJalaliDate()
+    {
+        String errorMessage = "Jalali date is not immutable or its factories are not correct";
+
+        assertTrue(errorMessage, Modifier.isFinal(JalaliDate.class.getModifiers()));
+        for (Field field : JalaliDate.class.getDeclaredFields())
+            assertTrue(errorMessage + ": " + field.getName(), Modifier.isFinal(field.getModifiers()));
+
+        JalaliDate expected = new JalaliDate(1370, 11, 28);
+        assertEquals(errorMessage, expected, JalaliDate.of(1370, 11, 28));
+        assertEquals(errorMessage, expected, JalaliDate.of(1370, MonthPersian.BAHMAN, 28));
+        assertEquals(errorMessage, expected, JalaliDate.ofEpochDay(LocalDate.of(1992, 2, 17).toEpochDay()));
+        assertEquals(errorMessage, expected, JalaliDate.from(LocalDate.of(1992, 2, 17)));
+        assertEquals(errorMessage, DayOfWeekPersian.Doshanbeh, JalaliDate.from(LocalDate.of(1992, 2, 17)).getDayOfWeek());
+    }
+
     @Test
     public void nowAsGregorian()
     {
@@ -130,12 +743,439 @@ public class LibTest
 
         for (String[] strings : englishTestCases)
             assertEquals(errorMessage, jalaliDate.format(new JalaliDateFormatter(strings[0])), strings[1]);
+    }
+
+    @Test
+    public void sharedJalaliFormatter() throws Exception
+    {
+        String errorMessage = "Shared jalali date formatter does not work properly";
+
+        JalaliDateFormatter persianFormatter = new JalaliDateFormatter("yyyy M dd", JalaliDateFormatter.FORMAT_IN_PERSIAN);
+        JalaliDateFormatter englishFormatter = new JalaliDateFormatter("yyyy/mm/dd");
+        JalaliDate jalaliDate = new JalaliDate(1370, 11, 28);
+
+        // a reused formatter gives the same result every time
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(errorMessage, "٢٨ بهمن ١٣٧٠", persianFormatter.format(jalaliDate));
+            assertEquals(errorMessage, "1370/11/28", englishFormatter.format(jalaliDate));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int task = 0; task < 4; task++)
+            {
+                int firstDay = task * 100;
+                results.add(executorService.submit(() -> {
+                    for (long epochDay = firstDay; epochDay < firstDay + 5000; epochDay++)
+                    {
+                        JalaliDate date = JalaliDate.ofEpochDay(epochDay);
+                        String expected = date.getYear() + "/" + (date.getMonthPersian().getValue() < 10 ? "0" : "")
+                                + date.getMonthPersian().getValue() + "/" + (date.getDay() < 10 ? "0" : "") + date.getDay();
+                        if (!englishFormatter.format(date).equals(expected))
+                            return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results)
+                assertTrue(errorMessage, result.get());
+        } finally
+        {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void jalaliFormatterFormatTo() throws IOException
+    {
+        String errorMessage = "Jalali date formatter does not write dates properly";
+
+        String[] patterns = {"yyyy/mm/dd", "yyyy- M dd", "dd M yyyy", "yyyy--mm  dd"};
+        char[] chars = new char[40];
+        ByteBuffer byteBuffer = ByteBuffer.allocate(64);
+        StringBuilder stringBuilder = new StringBuilder();
+        StringWriter stringWriter = new StringWriter();
+
+        for (String pattern : patterns)
+        {
+            for (int formatLanguage : new int[]{JalaliDateFormatter.FORMAT_IN_PERSIAN, JalaliDateFormatter.FORMAT_IN_ENGLISH})
+            {
+                JalaliDateFormatter jalaliDateFormatter = new JalaliDateFormatter(pattern, formatLanguage);
+                for (long epochDay = -20000; epochDay < 30000; epochDay += 37)
+                {
+                    JalaliDate jalaliDate = JalaliDate.ofEpochDay(epochDay);
+                    String expected = jalaliDateFormatter.format(jalaliDate);
+                    assertEquals(errorMessage, expected.length(), jalaliDateFormatter.formattedLength(jalaliDate));
+
+                    stringBuilder.setLength(0);
+                    stringBuilder.append('>');
+                    jalaliDateFormatter.formatTo(jalaliDate, stringBuilder);
+                    assertEquals(errorMessage, ">" + expected, stringBuilder.toString());
+
+                    stringWriter.getBuffer().setLength(0);
+                    jalaliDateFormatter.formatTo(jalaliDate, stringWriter);
+                    assertEquals(errorMessage, expected, stringWriter.toString());
+
+                    int length = jalaliDateFormatter.formatTo(jalaliDate, chars, 3);
+                    assertEquals(errorMessage, expected, new String(chars, 3, length));
+
+                    byteBuffer.clear().position(5);
+                    length = jalaliDateFormatter.formatTo(jalaliDate, byteBuffer);
+                    assertEquals(errorMessage, 5 + length, byteBuffer.position());
+                    assertEquals(errorMessage, expected, new String(byteBuffer.array(), 5, length, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        // nothing is written when there is not enough room
+        JalaliDateFormatter jalaliDateFormatter = new JalaliDateFormatter("yyyy/mm/dd");
+        byteBuffer.clear().limit(9);
+        try
+        {
+            jalaliDateFormatter.formatTo(new JalaliDate(1370, 11, 28), byteBuffer);
+            fail(errorMessage);
+        } catch (BufferOverflowException e)
+        {
+            assertEquals(errorMessage, 0, byteBuffer.position());
+        }
+    }
+
+    @Test
+    public void sharedJalaliFormatterOfPattern()
+    {
+        String errorMessage = "Shared jalali date formatters are not cached properly";
+
+        JalaliDate jalaliDate = new JalaliDate(1370, 11, 28);
+        assertEquals(errorMessage, "1370-11-28", JalaliDateFormatter.ISO_DATE.format(jalaliDate));
+        assertEquals(errorMessage, "1370/11/28", JalaliDateFormatter.SLASH_DATE.format(jalaliDate));
+        assertEquals(errorMessage, "١٣٧٠/١١/٢٨", JalaliDateFormatter.PERSIAN_SLASH_DATE.format(jalaliDate));
+
+        // years below 1000 are padded like ISO-8601 and toString
+        for (JalaliDate smallYear : new JalaliDate[]{new JalaliDate(5, 1, 1), new JalaliDate(42, 6, 31), new JalaliDate(999, 12, 29)})
+        {
+            assertEquals(errorMessage, smallYear.toString(), JalaliDateFormatter.ISO_DATE.format(smallYear));
+            assertEquals(errorMessage, smallYear.toString().replace('-', '/'), JalaliDateFormatter.SLASH_DATE.format(smallYear));
+            assertEquals(errorMessage, smallYear, JalaliDateFormatter.ISO_DATE.parse(JalaliDateFormatter.ISO_DATE.format(smallYear)));
+            assertEquals(errorMessage, smallYear, JalaliDateFormatter.PERSIAN_SLASH_DATE.parse(JalaliDateFormatter.PERSIAN_SLASH_DATE.format(smallYear)));
+        }
+        assertEquals(errorMessage, "0005-01-01", JalaliDateFormatter.ISO_DATE.format(new JalaliDate(5, 1, 1)));
+
+        assertSame(errorMessage, JalaliDateFormatter.ISO_DATE, JalaliDateFormatter.ofPattern("yyyy-mm-dd"));
+        assertSame(errorMessage, JalaliDateFormatter.PERSIAN_SLASH_DATE,
+                JalaliDateFormatter.ofPattern("yyyy/mm/dd", JalaliDateFormatter.FORMAT_IN_PERSIAN));
+        assertSame(errorMessage, JalaliDateFormatter.ofPattern("dd M yyyy"), JalaliDateFormatter.ofPattern(new String("dd M yyyy")));
+        assertNotSame(errorMessage, JalaliDateFormatter.ofPattern("dd M yyyy"),
+                JalaliDateFormatter.ofPattern("dd M yyyy", JalaliDateFormatter.FORMAT_IN_PERSIAN));
+        assertEquals(errorMessage, "٢٨ بهمن ١٣٧٠", jalaliDate.format(JalaliDateFormatter.ofPattern("yyyy M dd", JalaliDateFormatter.FORMAT_IN_PERSIAN)));
+
+        // cache is bounded, patterns after its limit are still formatted
+        StringBuilder pattern = new StringBuilder("yyyy");
+        for (int i = 0; i < JalaliDateFormatter.MAX_CACHED_PATTERNS + 10; i++)
+        {
+            pattern.append('-');
+            assertEquals(errorMessage, pattern.toString().replace("yyyy", "1370"),
+                    JalaliDateFormatter.ofPattern(pattern.toString()).format(jalaliDate));
+        }
+    }
+
+    @Test
+    public void jalaliFormatterCompactYearBelow1000()
+    {
+        String errorMessage = "Jalali date formatter does not format and parse years below 1000 of compact patterns";
+
+        JalaliDateFormatter jalaliDateFormatter = new JalaliDateFormatter("yyyymmdd");
+        JalaliDateFormatter persianJalaliDateFormatter = new JalaliDateFormatter("yyyymmdd", JalaliDateFormatter.FORMAT_IN_PERSIAN);
+        for (JalaliDate jalaliDate : new JalaliDate[]{new JalaliDate(999, 1, 2), new JalaliDate(5, 12, 29), new JalaliDate(1370, 11, 28)})
+        {
+            String formatted = jalaliDateFormatter.format(jalaliDate);
+            assertEquals(errorMessage, 8, formatted.length());
+            assertEquals(errorMessage, jalaliDate, jalaliDateFormatter.parse(formatted));
+            assertEquals(errorMessage, jalaliDate, persianJalaliDateFormatter.parse(persianJalaliDateFormatter.format(jalaliDate)));
+
+            char[] chars = new char[8];
+            assertEquals(errorMessage, 8, jalaliDateFormatter.formatTo(jalaliDate, chars, 0));
+            assertEquals(errorMessage, formatted, new String(chars));
+            ByteBuffer byteBuffer = ByteBuffer.allocate(16);
+            assertEquals(errorMessage, 16, persianJalaliDateFormatter.formatTo(jalaliDate, byteBuffer));
+        }
+        assertEquals(errorMessage, "09990102", jalaliDateFormatter.format(new JalaliDate(999, 1, 2)));
+
+        // a year that is not followed by a number is padded the same way
+        assertEquals(errorMessage, "0999/01/02", new JalaliDateFormatter("yyyy/mm/dd").format(new JalaliDate(999, 1, 2)));
+
+        // years that do not fit in 4 digits could not be parsed back, so they are not formatted
+        JalaliDate fiveDigits = new JalaliDate(12345, 1, 1);
+        JalaliDate negative = DateConverter.shared().ofEpochDay(LocalDate.of(1, 1, 1).toEpochDay());
+        assertTrue(errorMessage, negative.getYear() < 0);
+        for (JalaliDate jalaliDate : new JalaliDate[]{fiveDigits, negative})
+        {
+            assertFormatFails(errorMessage, () -> jalaliDateFormatter.format(jalaliDate));
+            assertFormatFails(errorMessage, () -> persianJalaliDateFormatter.format(jalaliDate));
+            assertFormatFails(errorMessage, () -> jalaliDateFormatter.formatTo(jalaliDate, new char[16], 0));
+            assertFormatFails(errorMessage, () -> persianJalaliDateFormatter.formatTo(jalaliDate, ByteBuffer.allocate(32)));
+            StringBuilder stringBuilder = new StringBuilder();
+            assertFormatFails(errorMessage, () -> jalaliDateFormatter.formatTo(jalaliDate, stringBuilder));
+            assertEquals(errorMessage, 0, stringBuilder.length());
+        }
+        assertEquals(errorMessage, "12345/01/01", new JalaliDateFormatter("yyyy/mm/dd").format(fiveDigits));
+        assertEquals(errorMessage, fiveDigits, new JalaliDateFormatter("yyyy/mm/dd").parse("12345/01/01"));
+    }
+
+    private static void assertFormatFails(String errorMessage, Runnable format)
+    {
+        try
+        {
+            format.run();
+            fail(errorMessage);
+        } catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void jalaliFormatterParse()
+    {
+        String errorMessage = "Jalali date formatter does not parse dates properly";
+
+        JalaliDate expected = new JalaliDate(1370, 11, 28);
+        String[][] testCases = {
+                {"yyyy/mm/dd", "1370/11/28"},
+                {"yyyy/mm/dd", "١٣٧٠/١١/٢٨"},
+                {"yyyy/mm/dd", "۱۳۷۰/۱۱/۲۸"},
+                {"yyyy-mm-dd", "1370-۱۱-٢٨"},
+                {"yyyy M dd", "1370 Bahmand 28"},
+                {"yyyy M dd", "1370 bahman 28"},
+                {"yyyy M dd", "1370 بهمن 28"},
+                {"yyyymmdd", "13701128"},
+                {"yyyy/m/d", "1370/11/28"},
+        };
+        for (String[] testCase : testCases)
+            assertEquals(errorMessage + ": " + testCase[1], expected, new JalaliDateFormatter(testCase[0]).parse(testCase[1]));
+
+        // persian patterns with month name are written from right to left
+        assertEquals(errorMessage, expected, new JalaliDateFormatter("yyyy- M dd", JalaliDateFormatter.FORMAT_IN_PERSIAN).parse("٢٨ بهمن -١٣٧٠"));
+        assertEquals(errorMessage, new JalaliDate(1397, 2, 5), new JalaliDateFormatter("yyyy/m/d").parse("1397/2/5"));
+
+        // every formatted date is parsed back
+        for (JalaliDateFormatter jalaliDateFormatter : new JalaliDateFormatter[]{JalaliDateFormatter.ISO_DATE,
+                JalaliDateFormatter.PERSIAN_SLASH_DATE, new JalaliDateFormatter("dd M yyyy", JalaliDateFormatter.FORMAT_IN_PERSIAN),
+                new JalaliDateFormatter("dd M yyyy")})
+        {
+            for (long epochDay = -20000; epochDay < 30000; epochDay += 13)
+            {
+                JalaliDate jalaliDate = JalaliDate.ofEpochDay(epochDay);
+                assertEquals(errorMessage, jalaliDate, jalaliDateFormatter.parse(jalaliDateFormatter.format(jalaliDate)));
+            }
+        }
+
+        // a date inside a longer text
+        ParsePosition position = new ParsePosition(5);
+        assertEquals(errorMessage, expected, JalaliDateFormatter.ISO_DATE.parse("date=1370-11-28;", position));
+        assertEquals(errorMessage, 15, position.getIndex());
+        assertEquals(errorMessage, -1, position.getErrorIndex());
+
+        // wrong texts return null and error index, index is not changed
+        String[][] wrongTestCases = {
+                {"1370-11-2x", "9"},
+                {"1370/11/28", "4"},
+                {"1370-1-28", "6"},
+                {"1371-12-30", "0"},
+                {"1370-07-31", "0"},
+                {"1370-13-01", "0"},
+                {"", "0"},
+        };
+        for (String[] testCase : wrongTestCases)
+        {
+            position = new ParsePosition(0);
+            assertNull(errorMessage, JalaliDateFormatter.ISO_DATE.parse(testCase[0], position));
+            assertEquals(errorMessage + ": " + testCase[0], Integer.parseInt(testCase[1]), position.getErrorIndex());
+            assertEquals(errorMessage, 0, position.getIndex());
+        }
+        assertEquals(errorMessage, new JalaliDate(1370, 12, 30), JalaliDateFormatter.ISO_DATE.parse("1370-12-30"));
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void jalaliFormatterParseUnparsedText()
+    {
+        JalaliDateFormatter.ISO_DATE.parse("1370-11-28T10:00");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void jalaliFormatterSmallArray()
+    {
+        new JalaliDateFormatter("yyyy/mm/dd").formatTo(new JalaliDate(1370, 11, 28), new char[12], 3);
+    }
+
+    @Test
+    public void isoCodec()
+    {
+        String errorMessage = "ISO codec does not read or write dates properly";
+
+        assertEquals(errorMessage, "1397-02-05", new JalaliDate(1397, 2, 5).toString());
+        assertEquals(errorMessage, "0005-12-29", new JalaliDate(5, 12, 29).toString());
+        assertEquals(errorMessage, "12345-01-01", new JalaliDate(12345, 1, 1).toString());
+
+        byte[] bytes = new byte[JalaliIsoCodec.LENGTH + 3];
+        ByteBuffer bigEndian = ByteBuffer.allocate(16);
+        ByteBuffer littleEndian = ByteBuffer.allocateDirect(16).order(ByteOrder.LITTLE_ENDIAN);
+        long firstEpochDay = DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(1, 1, 1));
+        long lastEpochDay = DateConverter.jalaliPackedToEpochDay(JalaliDate.pack(9999, 12, 29));
+        for (long epochDay = firstEpochDay; epochDay <= lastEpochDay; epochDay += 7)
+        {
+            JalaliDate jalaliDate = JalaliDate.ofEpochDay(epochDay);
+            int packed = jalaliDate.toPacked();
+
+            JalaliIsoCodec.encode(jalaliDate, bytes, 3);
+            assertEquals(errorMessage, jalaliDate.toString(), new String(bytes, 3, JalaliIsoCodec.LENGTH, StandardCharsets.US_ASCII));
+            assertEquals(errorMessage, packed, JalaliIsoCodec.decodePacked(bytes, 3));
+
+            JalaliIsoCodec.encodePacked(packed, bigEndian, 2, JalaliIsoCodec.SLASH);
+            JalaliIsoCodec.encodePacked(packed, littleEndian, 5, JalaliIsoCodec.SLASH);
+            assertEquals(errorMessage, packed, JalaliIsoCodec.decodePacked(bigEndian, 2));
+            assertEquals(errorMessage, jalaliDate, JalaliIsoCodec.decode(littleEndian, 5));
+            assertEquals(errorMessage, jalaliDate.toString().replace('-', '/'),
+                    new String(bigEndian.array(), 2, JalaliIsoCodec.LENGTH, StandardCharsets.US_ASCII));
+        }
+        assertEquals(errorMessage, 0, bigEndian.position());
+
+        // every byte of a date that is changed to another char makes it invalid, except digits that make another date
+        byte[] date = "1370-11-28".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < date.length; i++)
+        {
+            for (int b = 0; b < 256; b++)
+            {
+                byte[] changed = date.clone();
+                changed[i] = (byte) b;
+                String text = new String(changed, StandardCharsets.ISO_8859_1);
+                JalaliDate expected = JalaliDateFormatter.ISO_DATE.parse(text, new ParsePosition(0));
+                if (expected == null && text.matches("\\d{4}/\\d{2}/\\d{2}"))
+                    expected = JalaliDateFormatter.SLASH_DATE.parse(text, new ParsePosition(0));
+                boolean digitsOnly = text.matches("\\d{4}[-/]\\d{2}[-/]\\d{2}");
+                assertEquals(errorMessage + ": " + text, digitsOnly && expected != null ? expected.toPacked() : JalaliIsoCodec.INVALID,
+                        JalaliIsoCodec.decodePacked(changed, 0));
+            }
+        }
+        assertEquals(errorMessage, JalaliIsoCodec.INVALID, JalaliIsoCodec.decodePacked("1371-12-30".getBytes(StandardCharsets.US_ASCII), 0));
+        assertEquals(errorMessage, JalaliIsoCodec.INVALID, JalaliIsoCodec.decodePacked("0000-01-01".getBytes(StandardCharsets.US_ASCII), 0));
+        assertEquals(errorMessage, JalaliIsoCodec.INVALID, JalaliIsoCodec.decodePacked("1370-11/28".getBytes(StandardCharsets.US_ASCII), 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void isoCodecIllegalDate()
+    {
+        JalaliIsoCodec.decode("1370-13-01".getBytes(StandardCharsets.US_ASCII), 0);
+    }
+
+    @Test
+    public void isoCodecEncodeIllegalPacked()
+    {
+        String errorMessage = "ISO codec writes a packed value that is not a date";
 
-        new JalaliDate();
+        // month 15 and day 0, and 30 Esfand of a common year, fit in their bits but are not dates
+        int[] illegalPackedDates = {(1400 << 9) | (15 << 5) | 1, (1400 << 9) | (1 << 5), (1371 << 9) | (12 << 5) | 30};
+        for (int packed : illegalPackedDates)
+        {
+            byte[] bytes = new byte[JalaliIsoCodec.LENGTH];
+            ByteBuffer byteBuffer = ByteBuffer.allocate(JalaliIsoCodec.LENGTH);
+            try
+            {
+                JalaliIsoCodec.encodePacked(packed, bytes, 0, JalaliIsoCodec.DASH);
+                fail(errorMessage);
+            } catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                JalaliIsoCodec.encodePacked(packed, byteBuffer, 0, JalaliIsoCodec.SLASH);
+                fail(errorMessage);
+            } catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            assertArrayEquals(errorMessage, new byte[JalaliIsoCodec.LENGTH], bytes);
+            assertArrayEquals(errorMessage, new byte[JalaliIsoCodec.LENGTH], byteBuffer.array());
+        }
     }
 
     // --------------------------------- Test exceptions ------------------------------------------
 
+    @Test(expected = IllegalArgumentException.class)
+    public void jalaliFormatterIllegalPattern()
+    {
+        // pattern is validated when the formatter is created
+        new JalaliDateFormatter("yyyy/mm/dd*");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jalaliDateIllegalArgumentOfDay32()
+    {
+        // day 32 can not be packed, it would be 1370-02-00 in packed form
+        new JalaliDate(1370, 1, 32);
+    }
+
+    @Test
+    public void compareDatesNearMaxYear()
+    {
+        String errorMessage = "Jalali dates of large years are not compared properly";
+
+        JalaliDate first = new JalaliDate(1, 1, 1);
+        JalaliDate last = new JalaliDate(JalaliDate.MAX_YEAR, 1, 1);
+        JalaliDate beforeLast = new JalaliDate(JalaliDate.MAX_YEAR - 1, 11, 30);
+
+        assertTrue(errorMessage, last.isAfter(first));
+        assertFalse(errorMessage, last.isBefore(first));
+        assertTrue(errorMessage, beforeLast.compareTo(last) < 0);
+        assertTrue(errorMessage, last.compareTo(beforeLast) > 0);
+        assertNotEquals(errorMessage, last.hashCode(), beforeLast.hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jalaliDateIllegalArgumentOfMaxYear()
+    {
+        // astronomical calculation of later years is not right
+        new JalaliDate(JalaliDate.MAX_YEAR + 1, 1, 1);
+    }
+
+    @Test(timeout = 10_000)
+    public void datesOfMaxYear()
+    {
+        String errorMessage = "Dates of the last year are not calculated properly";
+
+        int lastDay = JalaliDate.isLeapYear(JalaliDate.MAX_YEAR) ? 30 : 29;
+        JalaliDate last = new JalaliDate(JalaliDate.MAX_YEAR, 12, lastDay);
+        long epochDay = last.toEpochDay();
+
+        assertEquals(errorMessage, last, JalaliDate.ofEpochDay(epochDay));
+        assertEquals(errorMessage, DateConverter.dayOfWeekOfEpochDay(epochDay), last.getDayOfWeek());
+        assertEquals(errorMessage, new JalaliDate(JalaliDate.MAX_YEAR, 1, 1).toEpochDay() + (lastDay == 30 ? 365 : 364), epochDay);
+        try
+        {
+            JalaliDate.ofEpochDay(epochDay + 1);
+            fail("A date after the last year was calculated");
+        } catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test(timeout = 10_000, expected = IllegalArgumentException.class)
+    public void leapYearFailsFastAfterMaxYear()
+    {
+        // the astronomical search does not end for such years
+        JalaliDate.isLeapYear(4_000_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packIllegalArgumentOfDay()
+    {
+        JalaliDate.pack(1370, 1, 32);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void jalaliDateIllegalArgumentOfMonth()
     {
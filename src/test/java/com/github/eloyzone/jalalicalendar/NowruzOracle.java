@@ -0,0 +1,592 @@
+package com.github.eloyzone.jalalicalendar;
+
+/**
+ * Reference Nowruz of jalali years for tests, it's a copy of the double based astronomy of the first version of
+ * DateConverter, before NowruzTable, the fast series and the caches, and it shares no code with the library. So the
+ * table, its generator and every conversion path can be checked against a calculation that they do not use.
+ * <p>
+ * Methods below {@link #nowruzJd(int)} are kept as they were in that version, only what Nowruz needs is copied and
+ * tables are made final. They only read those tables, so one object can be used by several threads.
+ *
+ * @author Eloy (Elyas Hadizadeh Tasbiti)
+ */
+final class NowruzOracle
+{
+    /**
+     * julian day of Nowruz, 1 Farvardin, of a year, in the same convention as DateConverter.astronomicalNowruzJd so
+     * epoch day is this value minus 2440587.
+     *
+     * @param year jalali year
+     * @return julian day of the first day of the year
+     */
+    int nowruzJd(int year)
+    {
+        return (int) persianaToJd(year, 1, 1);
+    }
+
+    private double mod(double a, double b)
+    {
+        return a - (b * Math.floor(a / b));
+    }
+
+    private boolean leapGregorian(double year)
+    {
+        return ((year % 4) == 0) && (!(((year % 100) == 0) && ((year % 400) != 0)));
+    }
+
+    private final double GREGORIAN_EPOCH = 1721425.5;
+
+    private double gregorianToJd(double year, double month, double day)
+    {
+        return (GREGORIAN_EPOCH - 1) +
+                (365 * (year - 1)) +
+                Math.floor((year - 1) / 4) +
+                (-Math.floor((year - 1) / 100)) +
+                Math.floor((year - 1) / 400) +
+                Math.floor((((367 * month) - 362) / 12) +
+                        ((month <= 2) ? 0 :
+                                (leapGregorian(year) ? -1 : -2)
+                        ) +
+                        day);
+    }
+
+    private double[] jdToGregorian(double jd)
+    {
+        double wjd, depoch, quadricent, dqc, cent, dcent, quad, dquad, yindex, year, yearday, leapadj;
+
+        wjd = Math.floor(jd - 0.5) + 0.5;
+        depoch = wjd - GREGORIAN_EPOCH;
+        quadricent = Math.floor(depoch / 146097);
+        dqc = mod(depoch, 146097);
+        cent = Math.floor(dqc / 36524);
+        dcent = mod(dqc, 36524);
+        quad = Math.floor(dcent / 1461);
+        dquad = mod(dcent, 1461);
+        yindex = Math.floor(dquad / 365);
+        year = (quadricent * 400) + (cent * 100) + (quad * 4) + yindex;
+        if (!((cent == 4) || (yindex == 4)))
+        {
+            year++;
+        }
+        yearday = wjd - gregorianToJd(year, 1, 1);
+        leapadj = ((wjd < gregorianToJd(year, 3, 1)) ? 0
+                :
+                (leapGregorian(year) ? 1 : 2)
+        );
+        double month = Math.floor((((yearday + leapadj) * 12) + 373) / 367);
+        double day = (wjd - gregorianToJd(year, month, 1)) + 1;
+
+        double[] returnValue = {year, month, day};
+        return returnValue;
+    }
+
+    private final double[][] JDE0tab1000 =
+
+            {
+                    {1721139.29189, 365242.13740, 0.06134, 0.00111, -0.00071},
+                    {1721233.25401, 365241.72562, -0.05323, 0.00907, 0.00025},
+                    {1721325.70455, 365242.49558, -0.11677, -0.00297, 0.00074},
+                    {1721414.39987, 365242.88257, -0.00769, -0.00933, -0.00006}
+            };
+
+    private final double[][] JDE0tab2000 = {
+            {2451623.80984, 365242.37404, 0.05169, -0.00411, -0.00057},
+            {2451716.56767, 365241.62603, 0.00325, 0.00888, -0.00030},
+            {2451810.21715, 365242.01767, -0.11575, 0.00337, 0.00078},
+            {2451900.05952, 365242.74049, -0.06223, -0.00823, 0.00032}
+    };
+
+    private double equinox(double year, int which)
+    {
+        double deltaL, JDE0, JDE, S, T, W, Y;
+        int i, j;
+        double[][] JDE0tab;
+
+        if (year < 1000)
+        {
+            JDE0tab = JDE0tab1000;
+            Y = year / 1000;
+        } else
+        {
+            JDE0tab = JDE0tab2000;
+            Y = (year - 2000) / 1000;
+        }
+
+        JDE0 = JDE0tab[which][0] +
+                (JDE0tab[which][1] * Y) +
+                (JDE0tab[which][2] * Y * Y) +
+                (JDE0tab[which][3] * Y * Y * Y) +
+                (JDE0tab[which][4] * Y * Y * Y * Y);
+
+        T = (JDE0 - 2451545.0) / 36525;
+        W = (35999.373 * T) - 2.47;
+        deltaL = 1 + (0.0334 * dcos(W)) + (0.0007 * dcos(2 * W));
+
+        S = 0;
+        for (i = j = 0; i < 24; i++)
+        {
+            S += EquinoxpTerms[j] * dcos(EquinoxpTerms[j + 1] + (EquinoxpTerms[j + 2] * T));
+            j += 3;
+        }
+
+
+        JDE = JDE0 + ((S * 0.00001) / deltaL);
+
+        return JDE;
+    }
+
+    private final double[] EquinoxpTerms = {
+            485, 324.96, 1934.136,
+            203, 337.23, 32964.467,
+            199, 342.08, 20.186,
+            182, 27.85, 445267.112,
+            156, 73.14, 45036.886,
+            136, 171.52, 22518.443,
+            77, 222.54, 65928.934,
+            74, 296.72, 3034.906,
+            70, 243.58, 9037.513,
+            58, 119.81, 33718.147,
+            52, 297.17, 150.678,
+            50, 21.02, 2281.226,
+            45, 247.54, 29929.562,
+            44, 325.15, 31555.956,
+            29, 60.93, 4443.417,
+            18, 155.12, 67555.328,
+            17, 288.79, 4562.452,
+            16, 198.04, 62894.029,
+            14, 199.76, 31436.921,
+            12, 95.39, 14577.848,
+            12, 287.11, 31931.756,
+            12, 320.81, 34777.259,
+            9, 227.73, 1222.114,
+            8, 15.45, 16859.074
+    };
+
+    private double tehranEquinox(double year)
+    {
+        double equJED, equJD, equAPP, equTehran, dtTehran;
+
+        equJED = equinox(year, 0);
+
+        equJD = equJED - (deltat(year) / (24 * 60 * 60));
+
+        equAPP = equJD + equationOfTime(equJED);
+
+        dtTehran = (52 + (30 / 60.0) + (0 / (60.0 * 60.0))) / 360;
+        equTehran = equAPP + dtTehran;
+
+        return equTehran;
+    }
+
+    private double deltat(double year)
+    {
+        double dt, f, t;
+        int i;
+
+        if ((year >= 1620) && (year <= 2000))
+        {
+            i = (int) Math.floor((year - 1620) / 2);
+            f = ((year - 1620) / 2) - i;
+            dt = deltaTtab[i] + ((deltaTtab[i + 1] - deltaTtab[i]) * f);
+        } else
+        {
+            t = (year - 2000) / 100;
+            if (year < 948)
+            {
+                dt = 2177 + (497 * t) + (44.1 * t * t);
+            } else
+            {
+                dt = 102 + (102 * t) + (25.3 * t * t);
+                if ((year > 2000) && (year < 2100))
+                {
+                    dt += 0.37 * (year - 2100);
+                }
+            }
+        }
+        return dt;
+    }
+
+    private final double deltaTtab[] = {
+            121, 112, 103, 95, 88, 82, 77, 72, 68, 63, 60, 56, 53, 51, 48, 46,
+            44, 42, 40, 38, 35, 33, 31, 29, 26, 24, 22, 20, 18, 16, 14, 12,
+            11, 10, 9, 8, 7, 7, 7, 7, 7, 7, 8, 8, 9, 9, 9, 9, 9, 10, 10, 10,
+            10, 10, 10, 10, 10, 11, 11, 11, 11, 11, 12, 12, 12, 12, 13, 13,
+            13, 14, 14, 14, 14, 15, 15, 15, 15, 15, 16, 16, 16, 16, 16, 16,
+            16, 16, 15, 15, 14, 13, 13.1, 12.5, 12.2, 12, 12, 12, 12, 12, 12,
+            11.9, 11.6, 11, 10.2, 9.2, 8.2, 7.1, 6.2, 5.6, 5.4, 5.3, 5.4, 5.6,
+            5.9, 6.2, 6.5, 6.8, 7.1, 7.3, 7.5, 7.6, 7.7, 7.3, 6.2, 5.2, 2.7,
+            1.4, -1.2, -2.8, -3.8, -4.8, -5.5, -5.3, -5.6, -5.7, -5.9, -6,
+            -6.3, -6.5, -6.2, -4.7, -2.8, -0.1, 2.6, 5.3, 7.7, 10.4, 13.3, 16,
+            18.2, 20.2, 21.1, 22.4, 23.5, 23.8, 24.3, 24, 23.9, 23.9, 23.7,
+            24, 24.3, 25.3, 26.2, 27.3, 28.2, 29.1, 30, 30.7, 31.4, 32.2,
+            33.1, 34, 35, 36.5, 38.3, 40.2, 42.2, 44.5, 46.5, 48.5, 50.5,
+            52.2, 53.8, 54.9, 55.8, 56.9, 58.3, 60, 61.6, 63, 65, 66.6
+    };
+
+
+    private final double J2000 = 2451545.0;
+    private final double JulianCentury = 36525.0;
+    private final double JulianMillennium = (JulianCentury * 10);
+
+    private double equationOfTime(double jd)
+    {
+        double alpha, deltaPsi, E, epsilon, L0, tau;
+
+        tau = (jd - J2000) / JulianMillennium;
+        L0 = 280.4664567 + (360007.6982779 * tau) +
+                (0.03032028 * tau * tau) +
+                ((tau * tau * tau) / 49931) +
+                (-((tau * tau * tau * tau) / 15300)) +
+                (-((tau * tau * tau * tau * tau) / 2000000));
+        L0 = fixangle(L0);
+        alpha = sunpos(jd)[10];
+        deltaPsi = nutation(jd)[0];
+        epsilon = obliqeq(jd) + nutation(jd)[1];
+        E = L0 + (-0.0057183) + (-alpha) + (deltaPsi * dcos(epsilon));
+        E = E - 20.0 * (Math.floor(E / 20.0));
+        E = E / (24 * 60);
+        return E;
+    }
+
+
+    private double[] nutation(double jd)
+    {
+        double deltaPsi, deltaEpsilon;
+        int i, j;
+        double t = (jd - 2451545.0) / 36525.0, t2, t3, to10,
+                dp = 0, de = 0, ang;
+        double ta[] = new double[5];
+
+
+        t3 = t * (t2 = t * t);
+
+        ta[0] = dtr(297.850363 + 445267.11148 * t - 0.0019142 * t2 +
+                t3 / 189474.0);
+        ta[1] = dtr(357.52772 + 35999.05034 * t - 0.0001603 * t2 -
+                t3 / 300000.0);
+        ta[2] = dtr(134.96298 + 477198.867398 * t + 0.0086972 * t2 +
+                t3 / 56250.0);
+        ta[3] = dtr(93.27191 + 483202.017538 * t - 0.0036825 * t2 +
+                t3 / 327270);
+        ta[4] = dtr(125.04452 - 1934.136261 * t + 0.0020708 * t2 +
+                t3 / 450000.0);
+
+        for (i = 0; i < 5; i++)
+        {
+            ta[i] = fixangr(ta[i]);
+        }
+
+        to10 = t / 10.0;
+        for (i = 0; i < 63; i++)
+        {
+            ang = 0;
+            for (j = 0; j < 5; j++)
+            {
+                if (nutArgMult[(i * 5) + j] != 0)
+                {
+                    ang += nutArgMult[(i * 5) + j] * ta[j];
+                }
+            }
+            dp += (nutArgCoeff[(i * 4) + 0] + nutArgCoeff[(i * 4) + 1] * to10) * Math.sin(ang);
+            de += (nutArgCoeff[(i * 4) + 2] + nutArgCoeff[(i * 4) + 3] * to10) * Math.cos(ang);
+        }
+
+        deltaPsi = dp / (3600.0 * 10000.0);
+        deltaEpsilon = de / (3600.0 * 10000.0);
+
+        double[] returnValue = {deltaPsi, deltaEpsilon};
+        return returnValue;
+    }
+
+
+    private final double[] nutArgCoeff = {
+            -171996, -1742, 92095, 89,
+            -13187, -16, 5736, -31,
+            -2274, -2, 977, -5,
+            2062, 2, -895, 5,
+            1426, -34, 54, -1,
+            712, 1, -7, 0,
+            -517, 12, 224, -6,
+            -386, -4, 200, 0,
+            -301, 0, 129, -1,
+            217, -5, -95, 3,
+            -158, 0, 0, 0,
+            129, 1, -70, 0,
+            123, 0, -53, 0,
+            63, 0, 0, 0,
+            63, 1, -33, 0,
+            -59, 0, 26, 0,
+            -58, -1, 32, 0,
+            -51, 0, 27, 0,
+            48, 0, 0, 0,
+            46, 0, -24, 0,
+            -38, 0, 16, 0,
+            -31, 0, 13, 0,
+            29, 0, 0, 0,
+            29, 0, -12, 0,
+            26, 0, 0, 0,
+            -22, 0, 0, 0,
+            21, 0, -10, 0,
+            17, -1, 0, 0,
+            16, 0, -8, 0,
+            -16, 1, 7, 0,
+            -15, 0, 9, 0,
+            -13, 0, 7, 0,
+            -12, 0, 6, 0,
+            11, 0, 0, 0,
+            -10, 0, 5, 0,
+            -8, 0, 3, 0,
+            7, 0, -3, 0,
+            -7, 0, 0, 0,
+            -7, 0, 3, 0,
+            -7, 0, 3, 0,
+            6, 0, 0, 0,
+            6, 0, -3, 0,
+            6, 0, -3, 0,
+            -6, 0, 3, 0,
+            -6, 0, 3, 0,
+            5, 0, 0, 0,
+            -5, 0, 3, 0,
+            -5, 0, 3, 0,
+            -5, 0, 3, 0,
+            4, 0, 0, 0,
+            4, 0, 0, 0,
+            4, 0, 0, 0,
+            -4, 0, 0, 0,
+            -4, 0, 0, 0,
+            -4, 0, 0, 0,
+            3, 0, 0, 0,
+            -3, 0, 0, 0,
+            -3, 0, 0, 0,
+            -3, 0, 0, 0,
+            -3, 0, 0, 0,
+            -3, 0, 0, 0,
+            -3, 0, 0, 0,
+            -3, 0, 0, 0
+    };
+
+
+    private final double[] nutArgMult = {
+            0, 0, 0, 0, 1,
+            -2, 0, 0, 2, 2,
+            0, 0, 0, 2, 2,
+            0, 0, 0, 0, 2,
+            0, 1, 0, 0, 0,
+            0, 0, 1, 0, 0,
+            -2, 1, 0, 2, 2,
+            0, 0, 0, 2, 1,
+            0, 0, 1, 2, 2,
+            -2, -1, 0, 2, 2,
+            -2, 0, 1, 0, 0,
+            -2, 0, 0, 2, 1,
+            0, 0, -1, 2, 2,
+            2, 0, 0, 0, 0,
+            0, 0, 1, 0, 1,
+            2, 0, -1, 2, 2,
+            0, 0, -1, 0, 1,
+            0, 0, 1, 2, 1,
+            -2, 0, 2, 0, 0,
+            0, 0, -2, 2, 1,
+            2, 0, 0, 2, 2,
+            0, 0, 2, 2, 2,
+            0, 0, 2, 0, 0,
+            -2, 0, 1, 2, 2,
+            0, 0, 0, 2, 0,
+            -2, 0, 0, 2, 0,
+            0, 0, -1, 2, 1,
+            0, 2, 0, 0, 0,
+            2, 0, -1, 0, 1,
+            -2, 2, 0, 2, 2,
+            0, 1, 0, 0, 1,
+            -2, 0, 1, 0, 1,
+            0, -1, 0, 0, 1,
+            0, 0, 2, -2, 0,
+            2, 0, -1, 2, 1,
+            2, 0, 1, 2, 2,
+            0, 1, 0, 2, 2,
+            -2, 1, 1, 0, 0,
+            0, -1, 0, 2, 2,
+            2, 0, 0, 2, 1,
+            2, 0, 1, 0, 0,
+            -2, 0, 2, 2, 2,
+            -2, 0, 1, 2, 1,
+            2, 0, -2, 0, 1,
+            2, 0, 0, 0, 1,
+            0, -1, 1, 0, 0,
+            -2, -1, 0, 2, 1,
+            -2, 0, 0, 0, 1,
+            0, 0, 2, 2, 1,
+            -2, 0, 2, 0, 1,
+            -2, 1, 0, 2, 1,
+            0, 0, 1, -2, 0,
+            -1, 0, 1, 0, 0,
+            -2, 1, 0, 0, 0,
+            1, 0, 0, 0, 0,
+            0, 0, 1, 2, 0,
+            -1, -1, 1, 0, 0,
+            0, 1, 1, 0, 0,
+            0, -1, 1, 2, 2,
+            2, -1, -1, 2, 2,
+            0, 0, -2, 2, 2,
+            0, 0, 3, 2, 2,
+            2, -1, 0, 2, 2
+    };
+
+    private double fixangr(double a)
+    {
+        return a - (2 * Math.PI) * (Math.floor(a / (2 * Math.PI)));
+    }
+
+    private double[] sunpos(double jd)
+    {
+        double T, T2, L0, M, e, C, sunLong, sunAnomaly, sunR,
+                Omega, Lambda, epsilon, epsilon0, Alpha, Delta,
+                AlphaApp, DeltaApp;
+
+        T = (jd - J2000) / JulianCentury;
+        T2 = T * T;
+        L0 = 280.46646 + (36000.76983 * T) + (0.0003032 * T2);
+        L0 = fixangle(L0);
+        M = 357.52911 + (35999.05029 * T) + (-0.0001537 * T2);
+        M = fixangle(M);
+        e = 0.016708634 + (-0.000042037 * T) + (-0.0000001267 * T2);
+        C = ((1.914602 + (-0.004817 * T) + (-0.000014 * T2)) * dsin(M)) +
+                ((0.019993 - (0.000101 * T)) * dsin(2 * M)) +
+                (0.000289 * dsin(3 * M));
+        sunLong = L0 + C;
+        sunAnomaly = M + C;
+        sunR = (1.000001018 * (1 - (e * e))) / (1 + (e * dcos(sunAnomaly)));
+        Omega = 125.04 - (1934.136 * T);
+        Lambda = sunLong + (-0.00569) + (-0.00478 * dsin(Omega));
+        epsilon0 = obliqeq(jd);
+        epsilon = epsilon0 + (0.00256 * dcos(Omega));
+        Alpha = rtd(Math.atan2(dcos(epsilon0) * dsin(sunLong), dcos(sunLong)));
+        Alpha = fixangle(Alpha);
+        Delta = rtd(Math.asin(dsin(epsilon0) * dsin(sunLong)));
+        AlphaApp = rtd(Math.atan2(dcos(epsilon) * dsin(Lambda), dcos(Lambda)));
+        AlphaApp = fixangle(AlphaApp);
+        DeltaApp = rtd(Math.asin(dsin(epsilon) * dsin(Lambda)));
+
+        double[] returnValue = {L0, M, e, C, sunLong, sunAnomaly, sunR, Lambda, Alpha, Delta, AlphaApp, DeltaApp};
+        return returnValue;
+    }
+
+    private double dcos(double d)
+    {
+        return Math.cos(dtr(d));
+    }
+
+    private double dtr(double d)
+    {
+        return (d * Math.PI) / 180.0;
+    }
+
+    private double rtd(double r)
+    {
+        return (r * 180.0) / Math.PI;
+    }
+
+    private double dsin(double d)
+    {
+        return Math.sin(dtr(d));
+    }
+
+    private double obliqeq(double jd)
+    {
+        double eps, u, v;
+        int i;
+
+        v = u = (jd - J2000) / (JulianCentury * 100);
+
+        eps = 23 + (26 / 60.0) + (21.448 / 3600.0);
+
+        if (Math.abs(u) < 1.0)
+        {
+            for (i = 0; i < 10; i++)
+            {
+                eps += (oterms[i] / 3600.0) * v;
+                v *= u;
+            }
+        }
+        return eps;
+    }
+
+    private final double[] oterms = {
+            -4680.93,
+            -1.55,
+            1999.25,
+            -51.38,
+            -249.67,
+            -39.05,
+            7.12,
+            27.87,
+            5.79,
+            2.45
+    };
+
+    private double fixangle(double a)
+    {
+        return a - 360.0 * (Math.floor(a / 360.0));
+    }
+
+
+    private double tehranEquinoxJd(double year)
+    {
+        double ep, epg;
+
+        ep = tehranEquinox(year);
+        epg = Math.floor(ep);
+
+        return epg;
+    }
+
+    private final double PERSIAN_EPOCH = 1948320.5;
+    private final double TropicalYear = 365.24219878;
+
+    private double[] persianaYear(double jd)
+    {
+        double guess = jdToGregorian(jd)[0] - 2,
+                lasteq, nexteq, adr;
+
+        lasteq = tehranEquinoxJd(guess);
+        while (lasteq > jd)
+        {
+            guess--;
+            lasteq = tehranEquinoxJd(guess);
+        }
+        nexteq = lasteq - 1;
+        while (!((lasteq <= jd) && (jd < nexteq)))
+        {
+            lasteq = nexteq;
+            guess++;
+            nexteq = tehranEquinoxJd(guess);
+        }
+        adr = Math.round((lasteq - PERSIAN_EPOCH) / TropicalYear) + 1;
+
+        double[] returnValue = {adr, lasteq};
+        return returnValue;
+    }
+
+    private double persianaToJd(double year, double month, double day)
+    {
+        double equinox, guess, jd;
+        double[] adr = {year - 1, 0};
+
+        guess = (PERSIAN_EPOCH - 1) + (TropicalYear * ((year - 1) - 1));
+
+        while (adr[0] < year)
+        {
+            adr = persianaYear(guess);
+            guess = adr[1] + (TropicalYear + 2);
+        }
+        equinox = adr[1];
+
+        jd = equinox +
+                ((month <= 7) ?
+                        ((month - 1) * 31) :
+                        (((month - 1) * 30) + 6)
+                ) +
+                (day - 1);
+        return jd;
+    }
+}